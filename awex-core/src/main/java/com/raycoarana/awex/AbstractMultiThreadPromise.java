@@ -21,6 +21,7 @@ class AbstractMultiThreadPromise<T, U, Progress> extends AbstractSingleThreadPro
         Collection<List> itemsGroupedByThread = split(items, numberOfThreads);
         Collection<Promise<Collection<U>, Progress>> promises = launchAll(itemsGroupedByThread);
         AfterAllPromise<Collection<U>, Progress> afterAll = new AfterAllPromise<>(mAwex, promises);
+        dependOn(afterAll);
         afterAll.done(new DoneCallback<MultipleResult<Collection<U>, Progress>>() {
             @Override
             public void onDone(MultipleResult<Collection<U>, Progress> result) {
@@ -28,6 +28,7 @@ abstract class AbstractSingleThreadPromise<T, U, P> extends AwexCollectionPromis
             mApplyChain = new Apply[]{apply};
             mChainStarterPromise = promise;
         }
+        dependOn(promise);
 
         mChainStarterPromise.fail(new FailCallback() {
             @Override
@@ -25,6 +25,7 @@ class AbstractTransformerPromise<T, U, P> extends AwexPromise<U, P> {
             mApplyChain = new Apply[]{apply};
             mChainStarterPromise = promise;
         }
+        dependOn(promise);
 
         mChainStarterPromise.done(new DoneCallback() {
             @Override
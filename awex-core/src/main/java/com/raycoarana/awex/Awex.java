@@ -1,10 +1,15 @@
 package com.raycoarana.awex;
 
+import com.raycoarana.awex.callbacks.AlwaysCallback;
 import com.raycoarana.awex.callbacks.CancelCallback;
 import com.raycoarana.awex.callbacks.DoneCallback;
 import com.raycoarana.awex.callbacks.FailCallback;
 import com.raycoarana.awex.exceptions.AbsentValueException;
+import com.raycoarana.awex.exceptions.CircuitOpenException;
 import com.raycoarana.awex.exceptions.EmptyTasksException;
+import com.raycoarana.awex.exceptions.QueueFullException;
+import com.raycoarana.awex.metrics.LatencyHistogram;
+import com.raycoarana.awex.metrics.NoMetrics;
 import com.raycoarana.awex.state.PoolStateImpl;
 import com.raycoarana.awex.state.QueueStateImpl;
 import com.raycoarana.awex.util.Map;
@@ -15,6 +20,7 @@ import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -22,24 +28,56 @@ public class Awex {
 
     private final ThreadHelper mThreadHelper;
     private final Logger mLogger;
+    private final EventLogger mEventLogger;
+    private final Metrics mMetrics;
     private final AtomicLong mWorkIdProvider = new AtomicLong();
     private final Map<Integer, AwexTaskQueue> mTaskQueueMap;
     private final Map<Integer, Map<Integer, Worker>> mWorkers;
     private final PoolPolicy mPoolPolicy;
     private final AtomicInteger mThreadIdProvider = new AtomicInteger();
-    private final ExecutorService mCallbackExecutor = Executors.newSingleThreadExecutor();
+    private static final ThreadLocal<Boolean> sPoolThread = new ThreadLocal<>();
+
+    private final ExecutorService mCallbackExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            return new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    markAsPoolThread();
+                    runnable.run();
+                }
+            });
+        }
+    });
+    private final ThreadLocal<Boolean> mExternalDispatch = new ThreadLocal<>();
+    private final ThreadLocal<Task> mOverflowTask = new ThreadLocal<>();
     private final Timer mTimer;
+    private final TimeoutWheel mTimeoutWheel;
     private final Map<Task, Task> mTasks = Map.Provider.getSync();
+    private final SerialLanes mSerialLanes = new SerialLanes();
 
     private AwexPromise mAbsentPromise;
 
     public Awex(ThreadHelper threadHelper, Logger logger, PoolPolicy poolPolicy) {
+        this(threadHelper, logger, poolPolicy, new NoMetrics());
+    }
+
+    public Awex(ThreadHelper threadHelper, Logger logger, PoolPolicy poolPolicy, Metrics metrics) {
         mThreadHelper = threadHelper;
         mLogger = logger;
+        mEventLogger = logger instanceof EventLogger ? (EventLogger) logger : new LoggerEventLogger(logger);
+        mMetrics = metrics;
         mTaskQueueMap = Map.Provider.getSync();
         mWorkers = Map.Provider.getSync();
         mPoolPolicy = poolPolicy;
         mTimer = new Timer();
+        mTimer.schedule(new TimerTask() {
+            @Override
+            public void run() {
+                markAsPoolThread();
+            }
+        }, 0);
+        mTimeoutWheel = new TimeoutWheel(this);
 
         initializeAbsentPromise();
 
@@ -59,18 +97,267 @@ public class Awex {
         return mLogger;
     }
 
+    EventLogger provideEventLogger() {
+        return mEventLogger;
+    }
+
+    Metrics provideMetrics() {
+        return mMetrics;
+    }
+
     long provideWorkId() {
         return mWorkIdProvider.incrementAndGet();
     }
 
     public <Result, Progress> Promise<Result, Progress> submit(final Task<Result, Progress> task) {
+        return submit(task, (Limiter) null);
+    }
+
+    /**
+     * Submits the task limiting the number of tasks submitted with the same limiter that are in
+     * the pool at the same time. If the limit is reached the task waits in the limiter, without
+     * blocking any thread, until other task of the limiter ends.
+     *
+     * @param task    task to execute
+     * @param limiter limiter of the task or null to submit it without limit
+     * @return the promise of the task
+     */
+    public <Result, Progress> Promise<Result, Progress> submit(final Task<Result, Progress> task, Limiter limiter) {
         task.initialize(this);
-        PoolStateImpl poolState = extractPoolState();
-        mPoolPolicy.onTaskAdded(poolState, task);
-        poolState.recycle();
+        task.setLimiter(limiter);
+        if (attachToScope(task)) {
+            enqueue(task, isExternalThread());
+        }
+        return task.getPromise();
+    }
+
+    /**
+     * Submits the task if the circuit breaker allows it, otherwise the task is not queued and
+     * its promise is rejected immediately with a CircuitOpenException. The outcome of the task
+     * is recorded in the circuit breaker.
+     *
+     * @param task           task to execute
+     * @param circuitBreaker circuit breaker of the dependency used by the task
+     * @return the promise of the task
+     */
+    public <Result, Progress> Promise<Result, Progress> submit(final Task<Result, Progress> task,
+                                                               final CircuitBreaker circuitBreaker) {
+        task.initialize(this);
+        final long permit = circuitBreaker.tryAcquire();
+        if (permit == CircuitBreaker.NO_PERMIT) {
+            task.discard(new CircuitOpenException());
+            return task.getPromise();
+        }
+
+        task.getPromise().done(new DoneCallback<Result>() {
+            @Override
+            public void onDone(Result result) {
+                circuitBreaker.onSuccess(permit);
+            }
+        }).fail(new FailCallback() {
+            @Override
+            public void onFail(Exception exception) {
+                circuitBreaker.onFailure(permit, exception);
+            }
+        }).cancel(new CancelCallback() {
+            @Override
+            public void onCancel() {
+                circuitBreaker.onIgnored(permit);
+            }
+        });
+        if (attachToScope(task)) {
+            enqueue(task, isExternalThread());
+        }
         return task.getPromise();
     }
 
+    /**
+     * Tracks the task in its scope or, if it has none, in the scope of the task that is
+     * submitting it
+     *
+     * @return false if the scope is cancelled and the task must not be queued
+     */
+    private boolean attachToScope(Task<?, ?> task) {
+        TaskScope scope = task.getScope();
+        if (scope == null) {
+            Task currentTask = Task.getCurrentTask();
+            scope = currentTask != null ? currentTask.getScope() : null;
+            task.setScope(scope);
+        }
+        if (scope != null) {
+            scope.track(task.getPromise());
+        }
+        return !task.getPromise().isCancelled();
+    }
+
+    private static void markAsPoolThread() {
+        sPoolThread.set(Boolean.TRUE);
+    }
+
+    /**
+     * Checks if the current thread is a thread of the user submitting tasks, not a worker, the
+     * timer or the callback thread of any pool, so it could be blocked or execute a task when
+     * a queue is full
+     */
+    private static boolean isExternalThread() {
+        return Task.getCurrentTask() == null && sPoolThread.get() == null;
+    }
+
+    private void enqueueScheduled(Task task) {
+        try {
+            enqueue(task, false);
+        } catch (Exception ex) {
+            mLogger.e("Error when submitting scheduled task", ex);
+            if (task.getState() == Task.STATE_NOT_QUEUE) {
+                task.discard(ex);
+            }
+        }
+    }
+
+    private void enqueue(Task task, boolean external) {
+        if (task.getAffinityKey() == null || mSerialLanes.enter(task)) {
+            admit(task, external);
+        }
+    }
+
+    private void admit(Task task, boolean external) {
+        Limiter limiter = task.getLimiter();
+        if (limiter == null || limiter.acquire(task)) {
+            dispatch(task, external);
+        }
+    }
+
+    /**
+     * Submits the task to the pool once the delay expires. The timer of the pool only fires the
+     * submission, the task is handed to the policy from the callback thread.
+     *
+     * @param task  task to execute
+     * @param delay time in milliseconds to wait before submitting the task
+     * @return the promise of the task, cancelling it before the delay expires will prevent the
+     * task from being submitted
+     */
+    public <Result, Progress> Promise<Result, Progress> schedule(final Task<Result, Progress> task, long delay) {
+        task.initialize(this);
+        if (!attachToScope(task)) {
+            return task.getPromise();
+        }
+        final TimerTask timerTask = new TimerTask() {
+            @Override
+            public void run() {
+                submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!task.isCancelled()) {
+                            enqueueScheduled(task);
+                        }
+                    }
+                });
+            }
+        };
+        task.getPromise().cancel(new CancelCallback() {
+            @Override
+            public void onCancel() {
+                timerTask.cancel();
+            }
+        });
+        mTimer.schedule(timerTask, delay);
+        return task.getPromise();
+    }
+
+    /**
+     * Submits the task periodically, the first time after the initial delay and then every
+     * period. If an execution takes longer than the period, the next ones are skipped until it
+     * finishes, so executions never overlap. The task is reset and reused between executions.
+     *
+     * @param task         task to execute
+     * @param initialDelay time in milliseconds to wait before the first execution
+     * @param period       time in milliseconds between the start of each execution
+     * @return a promise that receives the result of each execution as progress, it is rejected
+     * if any execution fails. Cancel it to stop the schedule.
+     */
+    public <Result, Progress> Promise<Void, Result> scheduleAtFixedRate(Task<Result, Progress> task,
+                                                                       long initialDelay, long period) {
+        return new PeriodicSchedule<>(this, task, period, true).start(initialDelay);
+    }
+
+    /**
+     * Submits the task periodically, the first time after the initial delay and then once the
+     * delay expires after each execution finishes. The task is reset and reused between
+     * executions.
+     *
+     * @param task         task to execute
+     * @param initialDelay time in milliseconds to wait before the first execution
+     * @param delay        time in milliseconds between the end of an execution and the next one
+     * @return a promise that receives the result of each execution as progress, it is rejected
+     * if any execution fails. Cancel it to stop the schedule.
+     */
+    public <Result, Progress> Promise<Void, Result> scheduleWithFixedDelay(Task<Result, Progress> task,
+                                                                          long initialDelay, long delay) {
+        return new PeriodicSchedule<>(this, task, delay, false).start(initialDelay);
+    }
+
+    private void dispatch(Task task, boolean external) {
+        Boolean previousExternal = mExternalDispatch.get();
+        mExternalDispatch.set(external);
+        try {
+            PoolStateImpl poolState = extractPoolState();
+            mPoolPolicy.onTaskAdded(poolState, task);
+            poolState.recycle();
+        } finally {
+            mExternalDispatch.set(previousExternal);
+        }
+
+        Task overflowTask = mOverflowTask.get();
+        if (external && overflowTask != null) {
+            mOverflowTask.remove();
+            onOverflowDeferred(overflowTask);
+        }
+    }
+
+    /**
+     * Applies the caller-runs or block strategies to a task that didn't fit in its queue, once
+     * the policy returned so no lock of the pool or the policy is held
+     */
+    private void onOverflowDeferred(Task task) {
+        AwexTaskQueue taskQueue = task.getQueue();
+        if (taskQueue.getOverflowStrategy() == QueueOptions.OVERFLOW_CALLER_RUNS) {
+            executeInCurrentThread(task);
+        } else if (!taskQueue.insertWhenSpaceAvailable(task)) {
+            rejectOverflowTask(task);
+        }
+    }
+
+    private void rejectOverflowTask(Task task) {
+        mTasks.remove(task);
+        task.discard(new QueueFullException());
+        onTaskEnded(task);
+    }
+
+    private void onTaskEnded(Task task) {
+        Limiter limiter = task.getLimiter();
+        if (limiter != null) {
+            limiter.release(task);
+            Task nextTask;
+            while ((nextTask = limiter.next()) != null) {
+                dispatch(nextTask, false);
+            }
+        }
+        if (task.getAffinityKey() != null) {
+            Task nextTask = mSerialLanes.leave(task);
+            if (nextTask != null) {
+                admit(nextTask, false);
+            }
+        }
+        notifyTaskEnded(task);
+    }
+
+    private void notifyTaskEnded(Task task) {
+        Runnable endListener = task.getEndListener();
+        if (endListener != null) {
+            endListener.run();
+        }
+    }
+
     private PoolStateImpl extractPoolState() {
         PoolStateImpl poolState = PoolStateImpl.get();
         extractQueueState(poolState);
@@ -98,24 +385,103 @@ public class Awex {
         }
     }
 
-    void submit(Runnable runnable) {
-        mCallbackExecutor.submit(runnable);
+    void submit(final Runnable runnable) {
+        if (mMetrics.isEnabled()) {
+            final long dispatchTime = System.nanoTime();
+            mCallbackExecutor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    mMetrics.onCallbackDispatched(System.nanoTime() - dispatchTime);
+                    runnable.run();
+                }
+            });
+        } else {
+            mCallbackExecutor.submit(runnable);
+        }
     }
 
     public <Result, Progress> void cancel(Task<Result, Progress> task, boolean mayInterrupt) {
+        boolean removed = false;
+        boolean removedFromLane = false;
         synchronized (this) {
             task.softCancel();
             AwexTaskQueue taskQueue = task.getQueue();
             if (taskQueue != null) {
-                if (!taskQueue.remove(task) && mayInterrupt) {
+                removed = taskQueue.remove(task);
+                if (!removed && mayInterrupt) {
                     Worker worker = task.getWorker();
                     if (worker != null) {
                         worker.interrupt();
                         mWorkers.get(taskQueue.getId()).remove(worker.getId());
                     }
                 }
+            } else if (task.getAffinityKey() != null && mSerialLanes.remove(task)) {
+                removedFromLane = true;
+            } else {
+                Limiter limiter = task.getLimiter();
+                removed = limiter != null && limiter.remove(task);
             }
         }
+        if (removed) {
+            onTaskEnded(task);
+        } else if (removedFromLane) {
+            notifyTaskEnded(task);
+        }
+    }
+
+    /**
+     * Creates a new promise that will be resolved with the result of the first attempt that
+     * completes correctly. Each time an attempt fails, if the retry policy allows it, a new task
+     * is created and submitted after the backoff delay, that is waited without blocking any
+     * worker. If the policy gives up the promise is rejected with the last exception thrown.
+     * Cancelling the promise cancels the current attempt and any pending retry.
+     *
+     * @param taskFactory factory of the task of each attempt
+     * @param retryPolicy policy that decides when and how often to retry
+     * @param <Result>    type of result of the tasks
+     * @param <Progress>  type of progress of the tasks
+     * @return a new promise that will be resolved with the first attempt completed correctly
+     */
+    public <Result, Progress> Promise<Result, Progress> retry(TaskFactory<Result, Progress> taskFactory,
+                                                              RetryPolicy retryPolicy) {
+        return new Retry<>(this, taskFactory, retryPolicy).start();
+    }
+
+    /**
+     * Creates a new promise that will be resolved with the result of the first copy of the task
+     * that completes correctly. The first copy is submitted immediately and, while no copy has
+     * completed, a new copy is submitted every time the delay expires or a copy fails, up to
+     * the maximum number of copies. Once resolved the rest of copies are cancelled. If every
+     * copy fails the promise is rejected with the last exception thrown.
+     *
+     * @param taskFactory factory of the task of each copy
+     * @param delay       time in milliseconds to wait for a copy before submitting the next one
+     * @param maxCopies   maximum number of copies submitted, including the first one
+     * @param <Result>    type of result of the tasks
+     * @param <Progress>  type of progress of the tasks
+     * @return a new promise that will be resolved with the first copy completed correctly
+     */
+    public <Result, Progress> Promise<Result, Progress> hedge(TaskFactory<Result, Progress> taskFactory,
+                                                              long delay, int maxCopies) {
+        return new Hedge<>(this, taskFactory, delay, null, maxCopies).start();
+    }
+
+    /**
+     * Same as hedge(TaskFactory, long, int) but the delay is the 95th percentile of the observed
+     * latencies. The latency of every copy that completes is recorded in the histogram, so the
+     * same histogram should be used for every execution of the same operation. Until enough
+     * latencies are recorded copies are only submitted when the previous one fails.
+     *
+     * @param taskFactory factory of the task of each copy
+     * @param latencies   histogram of latencies in nanoseconds of the operation
+     * @param maxCopies   maximum number of copies submitted, including the first one
+     * @param <Result>    type of result of the tasks
+     * @param <Progress>  type of progress of the tasks
+     * @return a new promise that will be resolved with the first copy completed correctly
+     */
+    public <Result, Progress> Promise<Result, Progress> hedge(TaskFactory<Result, Progress> taskFactory,
+                                                              LatencyHistogram latencies, int maxCopies) {
+        return new Hedge<>(this, taskFactory, 0, latencies, maxCopies).start();
     }
 
 	/**
@@ -312,13 +678,63 @@ public class Awex {
         }
     }
 
+    /**
+     * Executes a queued task in the current thread if the current thread is executing other
+     * task, so a task that waits for the result of another one runs it instead of keeping its
+     * worker blocked while the other task waits for a free worker
+     *
+     * @param task task to execute
+     * @return true if the task was taken from its queue and executed
+     */
+    boolean tryExecuteInline(Task<?, ?> task) {
+        if (Task.getCurrentTask() == null || task.getState() != Task.STATE_QUEUE) {
+            return false;
+        }
+        AwexTaskQueue taskQueue = task.getQueue();
+        if (taskQueue == null || !taskQueue.remove(task)) {
+            return false;
+        }
+        executeInCurrentThread(task);
+        return true;
+    }
+
+    private void executeInCurrentThread(Task task) {
+        try {
+            task.execute();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            mWorkerListener.onTaskFinished(task);
+        }
+    }
+
+    void scheduleTimeout(TimeoutWheel.Timeout timeout, long delay) {
+        mTimeoutWheel.add(timeout, delay);
+    }
+
+    void scheduleTimer(TimerTask timerTask, long delay, long period) {
+        if (period > 0) {
+            mTimer.scheduleAtFixedRate(timerTask, delay, period);
+        } else {
+            mTimer.schedule(timerTask, delay);
+        }
+    }
+
     <Result, Progress> void onTaskQueueTimeout(Task<Result, Progress> task) {
+        if (mMetrics.isEnabled()) {
+            mMetrics.onTaskQueueTimeout(task, System.nanoTime());
+        }
         PoolStateImpl poolState = extractPoolState();
         mPoolPolicy.onTaskQueueTimeout(poolState, task);
         poolState.recycle();
+        mTasks.remove(task);
+        onTaskEnded(task);
     }
 
     <Result, Progress> void onTaskExecutionTimeout(Task<Result, Progress> task) {
+        if (mMetrics.isEnabled()) {
+            mMetrics.onTaskExecutionTimeout(task, System.nanoTime());
+        }
         PoolStateImpl poolState = extractPoolState();
         mPoolPolicy.onTaskExecutionTimeout(poolState, task);
         poolState.recycle();
@@ -331,12 +747,32 @@ public class Awex {
 
     private final WorkerListener mWorkerListener = new WorkerListener() {
 
+        @Override
+        public void onWorkerStarted(int queueId, int workerId) {
+            markAsPoolThread();
+            mPoolPolicy.onWorkerStarted(queueId, workerId);
+        }
+
         @Override
         public void onTaskFinished(Task task) {
             PoolStateImpl poolState = extractPoolState();
             mPoolPolicy.onTaskFinished(poolState, task);
             poolState.recycle();
             mTasks.remove(task);
+            onTaskEnded(task);
+        }
+
+    };
+
+    private final WorkerListener mRealTimeWorkerListener = new WorkerListener() {
+
+        @Override
+        public void onWorkerStarted(int queueId, int workerId) {
+        }
+
+        @Override
+        public void onTaskFinished(Task task) {
+            onTaskEnded(task);
         }
 
     };
@@ -344,12 +780,17 @@ public class Awex {
     private class PoolManagerImpl implements PoolManager {
 
         @Override
-        public synchronized void createQueue(int queueId) {
+        public void createQueue(int queueId) {
+            createQueue(queueId, new QueueOptions());
+        }
+
+        @Override
+        public synchronized void createQueue(int queueId, QueueOptions options) {
             if (mTaskQueueMap.containsKey(queueId)) {
                 throw new IllegalStateException("Trying to create a queue with an id that already exists");
             }
 
-            mTaskQueueMap.put(queueId, new AwexTaskQueue(queueId));
+            mTaskQueueMap.put(queueId, new AwexTaskQueue(queueId, options, mMetrics));
         }
 
         @Override
@@ -368,15 +809,41 @@ public class Awex {
         @Override
         public void executeImmediately(Task task) {
             task.markQueue(null);
-            new RealTimeWorker(mThreadIdProvider.incrementAndGet(), task, mThreadHelper, mLogger);
+            new RealTimeWorker(mThreadIdProvider.incrementAndGet(), task, mThreadHelper, mEventLogger,
+                    mRealTimeWorkerListener);
         }
 
         @Override
         public void queueTask(int queueId, Task task) {
             AwexTaskQueue taskQueue = mTaskQueueMap.get(queueId);
             task.markQueue(taskQueue);
-            taskQueue.insert(task);
             mTasks.put(task, task);
+            Task overflowTask = taskQueue.insert(task);
+            if (overflowTask != null) {
+                onQueueFull(taskQueue, task, overflowTask);
+            }
+        }
+
+        private void onQueueFull(AwexTaskQueue taskQueue, Task task, Task overflowTask) {
+            PoolStateImpl poolState = extractPoolState();
+            mPoolPolicy.onQueueFull(poolState, taskQueue.getId(), overflowTask);
+            poolState.recycle();
+
+            if (overflowTask == task && canDeferOverflow(taskQueue)) {
+                mOverflowTask.set(task);
+            } else {
+                rejectOverflowTask(overflowTask);
+            }
+        }
+
+        /**
+         * Only a task submitted from an external thread could wait for space or run in the
+         * submitter, pool threads must never block or execute tasks of a full queue
+         */
+        private boolean canDeferOverflow(AwexTaskQueue taskQueue) {
+            int overflowStrategy = taskQueue.getOverflowStrategy();
+            return (overflowStrategy == QueueOptions.OVERFLOW_CALLER_RUNS || overflowStrategy == QueueOptions.OVERFLOW_BLOCK) &&
+                    Boolean.TRUE.equals(mExternalDispatch.get()) && mOverflowTask.get() == null;
         }
 
         @SuppressWarnings("unchecked")
@@ -391,6 +858,19 @@ public class Awex {
 
             taskToMerge.markQueue(null);
             taskInQueue.getPromise().pipe(taskToMerge.getPromise());
+            if (taskToMerge.getAffinityKey() != null || taskToMerge.getLimiter() != null) {
+                taskToMerge.getPromise().always(new AlwaysCallback() {
+                    @Override
+                    public void onAlways() {
+                        onTaskEnded(taskToMerge);
+                    }
+                }).cancel(new CancelCallback() {
+                    @Override
+                    public void onCancel() {
+                        onTaskEnded(taskToMerge);
+                    }
+                });
+            }
         }
 
         @Override
@@ -403,7 +883,7 @@ public class Awex {
             }
 
             int id = mThreadIdProvider.incrementAndGet();
-            workersOfQueue.put(id, new Worker(id, priority, taskQueue, mThreadHelper, mLogger, mWorkerListener));
+            workersOfQueue.put(id, new Worker(id, priority, taskQueue, mThreadHelper, mEventLogger, mMetrics, mWorkerListener));
             return id;
         }
 
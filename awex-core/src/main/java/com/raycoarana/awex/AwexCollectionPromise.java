@@ -18,6 +18,7 @@ class AwexCollectionPromise<Result, Progress> extends AwexPromise<Collection<Res
 
     public <U> AwexCollectionPromise(Awex mAwex, Promise<U, Progress> promise) {
         super(mAwex);
+        dependOn(promise);
 
         promise.done(new DoneCallback<U>() {
             @SuppressWarnings("unchecked")
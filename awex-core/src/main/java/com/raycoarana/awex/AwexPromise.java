@@ -20,6 +20,10 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Implementation of task promise
@@ -31,15 +35,28 @@ class AwexPromise<Result, Progress> implements ResolvablePromise<Result, Progres
 
     private final ThreadHelper mThreadHelper;
     private final Logger mLogger;
+    private final EventLogger mEventLogger;
+    private final Metrics mMetrics;
     private final long mId;
 
     private int mState;
     private Result mResult;
     private Exception mException;
     private Callbacks<Result, Progress> mCallbacks;
+    private int mDependents;
+    private List<AwexPromise> mUpstreamPromises;
+
+    private Waiter mWaiters;
 
     private final Object mProgressInOrderSyncObject = new Object();
-    private final Object mBlockingObject = new Object();
+
+    /**
+     * Thread blocked waiting for the promise to complete, waiters are linked in a stack
+     */
+    private static class Waiter {
+        private final Thread mThread = Thread.currentThread();
+        private Waiter mNext;
+    }
 
     private static class Callbacks<Result, Progress> {
         public static final Callbacks EMPTY = new Callbacks(true);
@@ -127,9 +144,11 @@ class AwexPromise<Result, Progress> implements ResolvablePromise<Result, Progres
         mId = mTask != null ? mTask.getId() : -1;
         mThreadHelper = awex.provideUIThread();
         mLogger = awex.provideLogger();
+        mEventLogger = awex.provideEventLogger();
+        mMetrics = awex.provideMetrics();
         mState = STATE_PENDING;
         mCallbacks = Callbacks.get();
-        printStateChanged("PENDING");
+        printStateChanged();
     }
 
     /**
@@ -147,7 +166,7 @@ class AwexPromise<Result, Progress> implements ResolvablePromise<Result, Progres
             validateInPendingState();
 
             mState = STATE_RESOLVED;
-            printStateChanged("RESOLVED");
+            printStateChanged();
             mResult = result;
 
             doneCallbacks = mCallbacks.cloneDoneCallbacks();
@@ -184,6 +203,7 @@ class AwexPromise<Result, Progress> implements ResolvablePromise<Result, Progres
     }
 
     private void tryTrigger(DoneCallback<Result> callback, Result result) {
+        markCallbackDelivered();
         try {
             callback.onDone(result);
         } catch (Exception ex) {
@@ -205,7 +225,7 @@ class AwexPromise<Result, Progress> implements ResolvablePromise<Result, Progres
             validateInPendingState();
 
             mState = STATE_REJECTED;
-            printStateChanged("REJECTED");
+            printStateChanged();
             mException = ex;
 
             failCallbacks = mCallbacks.cloneFailCallbacks();
@@ -221,6 +241,12 @@ class AwexPromise<Result, Progress> implements ResolvablePromise<Result, Progres
         return this;
     }
 
+    private void markCallbackDelivered() {
+        if (mTask != null) {
+            mTask.markCallbackDelivered();
+        }
+    }
+
     private void triggerAllFails(Collection<FailCallback> failCallbacks) {
         for (final FailCallback callback : failCallbacks) {
             triggerFail(callback);
@@ -241,6 +267,7 @@ class AwexPromise<Result, Progress> implements ResolvablePromise<Result, Progres
     }
 
     private void tryTrigger(FailCallback callback, Exception exception) {
+        markCallbackDelivered();
         try {
             callback.onFail(exception);
         } catch (Exception ex) {
@@ -268,6 +295,7 @@ class AwexPromise<Result, Progress> implements ResolvablePromise<Result, Progres
     }
 
     private void tryTrigger(AlwaysCallback callback) {
+        markCallbackDelivered();
         try {
             callback.onAlways();
         } catch (Exception ex) {
@@ -286,8 +314,8 @@ class AwexPromise<Result, Progress> implements ResolvablePromise<Result, Progres
         synchronized (this) {
             validateInPendingState();
 
-            if (mLogger.isEnabled()) {
-                mLogger.v("Promise of task " + mId + " progress to " + progress);
+            if (mEventLogger.isEnabled()) {
+                mEventLogger.log(LogEvent.PROMISE_PROGRESS, mId, 0);
             }
 
             progressCallbacks = mCallbacks.cloneProgressCallbacks();
@@ -342,16 +370,20 @@ class AwexPromise<Result, Progress> implements ResolvablePromise<Result, Progres
     public void cancelTask(final boolean mayInterrupt) {
         final int state;
         final List<CancelCallback> cancelCallbacks;
+        final List<AwexPromise> upstreamPromises;
         synchronized (this) {
             state = mState;
+            upstreamPromises = mUpstreamPromises;
             if (state == STATE_PENDING) {
                 mState = STATE_CANCELLED;
-                printStateChanged("CANCELLED");
+                mUpstreamPromises = null;
+                printStateChanged();
             }
             cancelCallbacks = mCallbacks.cloneCancelCallbacks();
             clearCallbacks();
         }
         if (state == STATE_PENDING) {
+            releaseUpstreamPromises(upstreamPromises, mayInterrupt);
             if (mThreadHelper.isCurrentThread() && cancelCallbacks.size() > 0) {
                 mAwex.submit(new Runnable() {
 
@@ -367,6 +399,73 @@ class AwexPromise<Result, Progress> implements ResolvablePromise<Result, Progres
         }
     }
 
+    /**
+     * Makes this promise a dependent of the upstream promise, so when every dependent of the
+     * upstream promise is cancelled, the upstream promise is cancelled too. If this promise is
+     * already cancelled the upstream promise is released immediately.
+     *
+     * @param upstream promise whose result this promise is waiting for
+     */
+    void dependOn(Promise upstream) {
+        if (!(upstream instanceof AwexPromise)) {
+            return;
+        }
+
+        AwexPromise awexUpstream = (AwexPromise) upstream;
+        boolean cancelled;
+        synchronized (this) {
+            awexUpstream.addDependent();
+            cancelled = mState == STATE_CANCELLED;
+            if (!cancelled) {
+                if (mUpstreamPromises == null) {
+                    mUpstreamPromises = new ArrayList<>(1);
+                }
+                mUpstreamPromises.add(awexUpstream);
+            }
+        }
+        if (cancelled) {
+            awexUpstream.releaseDependent(false);
+        }
+    }
+
+    /**
+     * Releases the upstream promises of this promise without cancelling it, so they are
+     * cancelled if no other promise depends on them
+     *
+     * @param mayInterrupt if the upstream tasks could be interrupted
+     */
+    void releaseUpstream(boolean mayInterrupt) {
+        List<AwexPromise> upstreamPromises;
+        synchronized (this) {
+            upstreamPromises = mUpstreamPromises;
+            mUpstreamPromises = null;
+        }
+        releaseUpstreamPromises(upstreamPromises, mayInterrupt);
+    }
+
+    private synchronized void addDependent() {
+        mDependents++;
+    }
+
+    private void releaseDependent(boolean mayInterrupt) {
+        boolean lastDependent;
+        synchronized (this) {
+            mDependents--;
+            lastDependent = mDependents == 0 && mState == STATE_PENDING;
+        }
+        if (lastDependent) {
+            cancelTask(mayInterrupt);
+        }
+    }
+
+    private void releaseUpstreamPromises(List<AwexPromise> upstreamPromises, boolean mayInterrupt) {
+        if (upstreamPromises != null) {
+            for (AwexPromise upstreamPromise : upstreamPromises) {
+                upstreamPromise.releaseDependent(mayInterrupt);
+            }
+        }
+    }
+
     private void doCancel(boolean mayInterrupt, Collection<CancelCallback> cancelCallbacks) {
         if (mTask != null) {
             mAwex.cancel(mTask, mayInterrupt);
@@ -382,9 +481,9 @@ class AwexPromise<Result, Progress> implements ResolvablePromise<Result, Progres
 
     private void triggerCancel(final CancelCallback callback) {
         if (callback instanceof UICancelCallback && !mThreadHelper.isCurrentThread()) {
-            mThreadHelper.post(new Runnable() {
+            mThreadHelper.post(new DispatchedRunnable() {
                 @Override
-                public void run() {
+                public void execute() {
                     tryTrigger(callback);
                 }
             });
@@ -406,8 +505,11 @@ class AwexPromise<Result, Progress> implements ResolvablePromise<Result, Progres
         mCallbacks.recycle();
         mCallbacks = Callbacks.EMPTY;
 
-        synchronized (mBlockingObject) {
-            mBlockingObject.notifyAll();
+        Waiter waiter = mWaiters;
+        mWaiters = null;
+        while (waiter != null) {
+            LockSupport.unpark(waiter.mThread);
+            waiter = waiter.mNext;
         }
     }
 
@@ -456,6 +558,15 @@ class AwexPromise<Result, Progress> implements ResolvablePromise<Result, Progres
         }
     }
 
+    @Override
+    public Result getResult(long timeout, TimeUnit unit) throws Exception {
+        if (!blockWhilePending(unit.toNanos(timeout))) {
+            throw new TimeoutException("Promise not completed after " + timeout + " " + unit);
+        }
+
+        return getResult();
+    }
+
     @Override
     public Result getResultOrDefault(Result defaultValue) throws InterruptedException {
         blockWhilePending();
@@ -470,18 +581,94 @@ class AwexPromise<Result, Progress> implements ResolvablePromise<Result, Progres
     }
 
     private void blockWhilePending() throws InterruptedException {
-        synchronized (mBlockingObject) {
-            while (isPending()) {
-                try {
-                    mBlockingObject.wait();
-                } catch (InterruptedException ex) {
-                    Thread.currentThread().interrupt();
-                    throw ex;
+        blockWhilePending(-1);
+    }
+
+    /**
+     * Parks the current thread until the promise is completed, the thread is pushed in the
+     * stack of waiters so completing a promise without waiters doesn't need to wake anyone.
+     * Without timeout, if the current thread is executing a task, the queued tasks this promise
+     * waits for are executed inline first, so nested tasks can't starve the pool.
+     *
+     * @param timeout maximum time to wait in nanoseconds or -1 to wait forever
+     * @return true if the promise is completed, false if the timeout expired
+     */
+    private boolean blockWhilePending(long timeout) throws InterruptedException {
+        long deadline = timeout >= 0 ? System.nanoTime() + timeout : 0;
+        if (timeout < 0 && Task.getCurrentTask() != null && isPending()) {
+            executeQueuedTasksInline();
+        }
+
+        Waiter waiter = null;
+        while (true) {
+            synchronized (this) {
+                if (mState != STATE_PENDING) {
+                    return true;
+                }
+                if (waiter == null) {
+                    waiter = new Waiter();
+                    waiter.mNext = mWaiters;
+                    mWaiters = waiter;
+                }
+            }
+
+            if (Thread.interrupted()) {
+                removeWaiter(waiter);
+                Thread.currentThread().interrupt();
+                throw new InterruptedException();
+            }
+            if (timeout < 0) {
+                LockSupport.park(this);
+            } else {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    removeWaiter(waiter);
+                    return false;
                 }
+                LockSupport.parkNanos(this, remaining);
             }
         }
     }
 
+    /**
+     * Executes in the current thread the queued tasks this promise is waiting for, directly or
+     * through its upstream promises
+     */
+    private void executeQueuedTasksInline() {
+        if (mTask != null) {
+            mAwex.tryExecuteInline(mTask);
+            return;
+        }
+
+        List<AwexPromise> upstreamPromises;
+        synchronized (this) {
+            if (mUpstreamPromises == null) {
+                return;
+            }
+            upstreamPromises = new ArrayList<>(mUpstreamPromises);
+        }
+        for (AwexPromise upstreamPromise : upstreamPromises) {
+            if (upstreamPromise.isPending()) {
+                upstreamPromise.executeQueuedTasksInline();
+            }
+        }
+    }
+
+    private synchronized void removeWaiter(Waiter waiter) {
+        Waiter previous = null;
+        for (Waiter current = mWaiters; current != null; current = current.mNext) {
+            if (current == waiter) {
+                if (previous == null) {
+                    mWaiters = current.mNext;
+                } else {
+                    previous.mNext = current.mNext;
+                }
+                return;
+            }
+            previous = current;
+        }
+    }
+
     @Override
     public Promise<Result, Progress> done(final DoneCallback<Result> callback) {
         int state;
@@ -614,23 +801,137 @@ class AwexPromise<Result, Progress> implements ResolvablePromise<Result, Progres
 
     @Override
     public <R, P> Promise<R, P> then(final ThenCallback<Result, R, P> callback) {
-        final ResolvablePromise<R, P> promise = mAwex.newAwexPromise();
+        final AwexPromise<R, P> promise = (AwexPromise<R, P>) mAwex.<R, P>newAwexPromise();
+        promise.dependOn(this);
 
         fail(new FailCallback() {
             @Override
             public void onFail(Exception exception) {
-                reject(exception);
+                synchronized (promise) {
+                    if (promise.isPending()) {
+                        promise.reject(exception);
+                    }
+                }
             }
         }).done(new DoneCallback<Result>() {
             @Override
             public void onDone(Result result) {
-                callback.then(result).pipe(promise);
+                Promise<R, P> nextPromise = callback.then(result);
+                promise.dependOn(nextPromise);
+                nextPromise.pipe(promise);
+            }
+        }).cancel(new CancelCallback() {
+            @Override
+            public void onCancel() {
+                promise.cancelTask();
+            }
+        });
+
+        return promise;
+    }
+
+    @Override
+    public <R, P> Promise<R, P> then(final ThenCallback<Result, R, P> callback, final int executionHint) {
+        if (executionHint < EXECUTE_INLINE || executionHint > EXECUTE_UI) {
+            throw new IllegalArgumentException("Unknown execution hint " + executionHint);
+        }
+
+        final AwexPromise<R, P> promise = (AwexPromise<R, P>) mAwex.<R, P>newAwexPromise();
+        promise.dependOn(this);
+
+        onCompletion(new DoneCallback<Result>() {
+            @Override
+            public void onDone(final Result result) {
+                dispatch(executionHint, new Runnable() {
+                    @Override
+                    public void run() {
+                        Promise<R, P> nextPromise;
+                        try {
+                            nextPromise = callback.then(result);
+                        } catch (Exception ex) {
+                            synchronized (promise) {
+                                if (promise.isPending()) {
+                                    promise.reject(ex);
+                                }
+                            }
+                            return;
+                        }
+                        promise.dependOn(nextPromise);
+                        nextPromise.pipe(promise);
+                    }
+                });
+            }
+        }, new FailCallback() {
+            @Override
+            public void onFail(Exception exception) {
+                synchronized (promise) {
+                    if (promise.isPending()) {
+                        promise.reject(exception);
+                    }
+                }
+            }
+        }, new CancelCallback() {
+            @Override
+            public void onCancel() {
+                promise.cancelTask();
             }
         });
 
         return promise;
     }
 
+    /**
+     * Registers callbacks that are executed in the thread that completes the promise, or in the
+     * current one if it is already completed, even if it is the UI thread
+     */
+    private void onCompletion(DoneCallback<Result> doneCallback, FailCallback failCallback,
+                              CancelCallback cancelCallback) {
+        int state;
+        synchronized (this) {
+            state = mState;
+            if (state == STATE_PENDING) {
+                mCallbacks.mDoneCallbacks.add(doneCallback);
+                mCallbacks.mFailCallbacks.add(failCallback);
+                mCallbacks.mCancelCallbacks.add(cancelCallback);
+            }
+        }
+
+        switch (state) {
+            case STATE_RESOLVED:
+                tryTrigger(doneCallback, mResult);
+                break;
+            case STATE_REJECTED:
+                tryTrigger(failCallback, mException);
+                break;
+            case STATE_CANCELLED:
+                tryTrigger(cancelCallback);
+                break;
+        }
+    }
+
+    private void dispatch(int executionHint, final Runnable runnable) {
+        switch (executionHint) {
+            case EXECUTE_POOL:
+                mAwex.submit(new VoidTask() {
+                    @Override
+                    protected void runWithoutResult() throws InterruptedException {
+                        runnable.run();
+                    }
+                });
+                break;
+            case EXECUTE_UI:
+                if (mThreadHelper.isCurrentThread()) {
+                    Trampoline.execute(runnable);
+                } else {
+                    mThreadHelper.post(runnable);
+                }
+                break;
+            default:
+                Trampoline.execute(runnable);
+                break;
+        }
+    }
+
     @Override
     public Promise<Result, Progress> or(Promise<Result, Progress> promise) {
         return new OrPromise<>(mAwex, this, promise);
@@ -650,34 +951,35 @@ class AwexPromise<Result, Progress> implements ResolvablePromise<Result, Progres
 
         final AwexPromise<Result, Progress> awexPromise = (AwexPromise<Result, Progress>) promise;
 
-        done(new DoneCallback<Result>() {
+        progress(new ProgressCallback<Progress>() {
             @Override
-            public void onDone(Result result) {
+            public void onProgress(Progress progress) {
                 synchronized (awexPromise) {
                     if (awexPromise.isPending()) {
-                        awexPromise.resolve(result);
+                        awexPromise.notifyProgress(progress);
                     }
                 }
             }
-        }).fail(new FailCallback() {
+        });
+        onCompletion(new DoneCallback<Result>() {
             @Override
-            public void onFail(Exception exception) {
+            public void onDone(Result result) {
                 synchronized (awexPromise) {
                     if (awexPromise.isPending()) {
-                        awexPromise.reject(exception);
+                        awexPromise.resolve(result);
                     }
                 }
             }
-        }).progress(new ProgressCallback<Progress>() {
+        }, new FailCallback() {
             @Override
-            public void onProgress(Progress progress) {
+            public void onFail(Exception exception) {
                 synchronized (awexPromise) {
                     if (awexPromise.isPending()) {
-                        awexPromise.notifyProgress(progress);
+                        awexPromise.reject(exception);
                     }
                 }
             }
-        }).cancel(new CancelCallback() {
+        }, new CancelCallback() {
             @Override
             public void onCancel() {
                 awexPromise.cancelTask();
@@ -690,17 +992,22 @@ class AwexPromise<Result, Progress> implements ResolvablePromise<Result, Progres
         return mThreadHelper.isCurrentThread() && !(callback instanceof UIAlwaysCallback);
     }
 
-    private void printStateChanged(String newState) {
-        if (mLogger.isEnabled()) {
-            StringBuilder stringBuilder = new StringBuilder();
-            mLogger.v(stringBuilder.append("Promise of task ")
-                    .append(mId)
-                    .append(" changed to state ")
-                    .append(newState)
-                    .toString());
+    private void printStateChanged() {
+        if (mEventLogger.isEnabled()) {
+            mEventLogger.log(LogEvent.PROMISE_STATE_CHANGED, mId, mState);
         }
     }
 
+    @Override
+    public Promise<Result, Progress> timeout(long timeout) {
+        return new TimeoutPromise<>(mAwex, this, timeout);
+    }
+
+    @Override
+    public Promise<Result, Progress> timeout(long timeout, Result fallbackValue) {
+        return new TimeoutPromise<>(mAwex, this, timeout, fallbackValue);
+    }
+
     @Override
     public <U> Promise<U, Progress> mapSingle(Mapper<Result, U> mapper) {
         return new MapperTransformerPromise<>(mAwex, this, mapper);
@@ -716,16 +1023,35 @@ class AwexPromise<Result, Progress> implements ResolvablePromise<Result, Progres
         return new AwexCollectionPromise<>(mAwex, this);
     }
 
-    private abstract class CancellableRunnable implements Runnable {
+    @Override
+    public Future<Result> toFuture() {
+        return new PromiseFuture<>(this);
+    }
+
+    private abstract class DispatchedRunnable implements Runnable {
+
+        private final long mDispatchTime = mMetrics.isEnabled() ? System.nanoTime() : 0;
 
         @Override
         public void run() {
-            if (mState != STATE_CANCELLED) {
-                execute();
+            if (mMetrics.isEnabled()) {
+                mMetrics.onCallbackDispatched(System.nanoTime() - mDispatchTime);
             }
+            execute();
         }
 
         public abstract void execute();
 
     }
+
+    private abstract class CancellableRunnable extends DispatchedRunnable {
+
+        @Override
+        public void run() {
+            if (mState != STATE_CANCELLED) {
+                super.run();
+            }
+        }
+
+    }
 }
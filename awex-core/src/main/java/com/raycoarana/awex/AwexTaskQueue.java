@@ -1,21 +1,63 @@
 package com.raycoarana.awex;
 
-import java.util.concurrent.PriorityBlockingQueue;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 class AwexTaskQueue {
 
-    private static final int INITIAL_CAPACITY = 4;
+    private static final Comparator<Task> OLDEST_LAST = new Comparator<Task>() {
+        @Override
+        public int compare(Task lhs, Task rhs) {
+            long diff = lhs.getTiming().getQueueTime() - rhs.getTiming().getQueueTime();
+            return diff < 0 ? 1 : (diff == 0 ? 0 : -1);
+        }
+    };
+
+    private static final int BUSY_SPINS = 100;
 
-    private final PriorityBlockingQueue<Task> mTaskQueue;
+    private final TaskContainer mTasks;
+    private final TaskPriorityComparator mComparator;
+    private final ReentrantLock mLock = new ReentrantLock();
+    private final Condition mTaskAvailable = mLock.newCondition();
+    private final Condition mSpaceAvailable = mLock.newCondition();
     private final AtomicInteger mWaitersCount = new AtomicInteger();
     private final AtomicInteger mSize = new AtomicInteger();
+    private final AtomicInteger mSpinnersCount = new AtomicInteger();
     private final int mId;
-    private boolean mDie = false;
+    private final Metrics mMetrics;
+    private final boolean mDeadlineOrdered;
+    private final int mCapacity;
+    private final int mOverflowStrategy;
+    private final long mBlockTimeout;
+    private final long mSpinTime;
+    private volatile boolean mDie = false;
 
-    public AwexTaskQueue(int id) {
+    public AwexTaskQueue(int id, QueueOptions options, Metrics metrics) {
         mId = id;
-        mTaskQueue = new PriorityBlockingQueue<>(INITIAL_CAPACITY, new TaskPriorityComparator());
+        mMetrics = metrics;
+        mDeadlineOrdered = options.getOrder() == QueueOptions.ORDER_BY_DEADLINE;
+        mCapacity = options.getCapacity();
+        mOverflowStrategy = options.getOverflowStrategy();
+        mBlockTimeout = TimeUnit.MILLISECONDS.toNanos(options.getBlockTimeout());
+        mSpinTime = options.getWaitStrategy() == QueueOptions.WAIT_SPIN_THEN_PARK ?
+                TimeUnit.MICROSECONDS.toNanos(options.getSpinTime()) : 0;
+        mComparator = createComparator(options);
+        mTasks = options.isFairShare() ? new FairShareTaskContainer(mComparator, options) : new PriorityTaskContainer(mComparator);
+    }
+
+    private static TaskPriorityComparator createComparator(QueueOptions options) {
+        switch (options.getOrder()) {
+            case QueueOptions.ORDER_BY_DEADLINE:
+                return new TaskDeadlineComparator();
+            case QueueOptions.ORDER_BY_AGED_PRIORITY:
+                return new TaskAgingComparator(options.getAgingInterval() * 1000000L);
+            default:
+                return new TaskPriorityComparator();
+        }
     }
 
     public Task take(Worker worker) throws InterruptedException {
@@ -25,8 +67,12 @@ class AwexTaskQueue {
             }
 
             mWaitersCount.incrementAndGet();
-            Task task = mTaskQueue.take();
-            mSize.decrementAndGet();
+            Task task = takeNext();
+            while (mDeadlineOrdered && task.getSlack() <= 0) {
+                release(task);
+                task.onQueueDeadlineExpired();
+                task = takeNext();
+            }
             task.setWorker(worker);
             return task;
         } finally {
@@ -34,25 +80,189 @@ class AwexTaskQueue {
         }
     }
 
-    public synchronized void insert(Task task) {
-        if (mDie) {
-            throw new IllegalStateException("Queue is die!");
+    private Task takeNext() throws InterruptedException {
+        if (mSpinTime > 0) {
+            spinWhileEmpty();
+        }
+
+        mLock.lockInterruptibly();
+        try {
+            Task task = mTasks.poll();
+            while (task == null) {
+                mTaskAvailable.await();
+                task = mTasks.poll();
+            }
+            notifyDepthChanged(mSize.decrementAndGet());
+            mSpaceAvailable.signal();
+            return task;
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * Spins until there is any task in the queue or the spin time expires, busy waiting first
+     * and then yielding the CPU. Tasks are always polled with the lock held afterwards, so a
+     * task queued while spinning is never missed.
+     */
+    private void spinWhileEmpty() {
+        mSpinnersCount.incrementAndGet();
+        try {
+            long deadline = System.nanoTime() + mSpinTime;
+            int spins = 0;
+            while (mSize.get() == 0 && !mDie && !Thread.currentThread().isInterrupted()) {
+                if (++spins > BUSY_SPINS) {
+                    if (System.nanoTime() - deadline >= 0) {
+                        return;
+                    }
+                    Thread.yield();
+                }
+            }
+        } finally {
+            mSpinnersCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Inserts the task in the queue. If the queue is full the overflow strategy is applied,
+     * the caller is responsible of rejecting or executing the overflowed task.
+     *
+     * @param task task to insert
+     * @return null if the task was inserted without overflow, otherwise the task that must be
+     * rejected or executed by the caller, that could be the task itself or other task that was
+     * dropped from the queue to make space
+     */
+    public Task insert(Task task) {
+        mLock.lock();
+        try {
+            if (mDie) {
+                throw new IllegalStateException("Queue is die!");
+            }
+
+            Task overflowTask = null;
+            if (isFull()) {
+                overflowTask = makeSpace(task);
+                if (overflowTask == task) {
+                    return task;
+                }
+            }
+
+            add(task, overflowTask == null);
+            return overflowTask;
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * Inserts the task once there is space in the queue, waiting up to the block timeout. It
+     * must be called without holding any lock of the pool or the policy, so workers could take
+     * tasks from the queue meanwhile.
+     *
+     * @param task task to insert
+     * @return true if the task was inserted, false if the queue is still full
+     */
+    public boolean insertWhenSpaceAvailable(Task task) {
+        mLock.lock();
+        try {
+            if (mDie) {
+                throw new IllegalStateException("Queue is die!");
+            }
+            if (!waitForSpace()) {
+                return false;
+            }
+
+            add(task, true);
+            return true;
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    private void add(Task task, boolean increaseSize) {
+        mTasks.add(task);
+        int size = mSize.get();
+        if (increaseSize) {
+            size = mSize.incrementAndGet();
+            notifyDepthChanged(size);
         }
+        if (mSpinnersCount.get() < size) {
+            mTaskAvailable.signal();
+        }
+    }
 
-        mTaskQueue.offer(task);
-        mSize.incrementAndGet();
+    private boolean isFull() {
+        return mCapacity != QueueOptions.UNBOUNDED && mSize.get() >= mCapacity;
     }
 
-    public synchronized <Result, Progress> boolean remove(Task<Result, Progress> task) {
-        if (mDie) {
-            throw new IllegalStateException("Queue is die!");
+    private Task makeSpace(Task task) {
+        switch (mOverflowStrategy) {
+            case QueueOptions.OVERFLOW_DROP_LOWEST_PRIORITY:
+                Task lowestPriorityTask = mTasks.findLast(mComparator);
+                return mComparator.compare(task, lowestPriorityTask) < 0 ? drop(lowestPriorityTask) : task;
+            case QueueOptions.OVERFLOW_DROP_OLDEST:
+                return drop(mTasks.findLast(OLDEST_LAST));
+            default:
+                return task;
         }
+    }
+
+    private Task drop(Task task) {
+        mTasks.remove(task);
+        return task;
+    }
 
-        boolean removed = mTaskQueue.remove(task);
-        if (removed) {
-            mSize.decrementAndGet();
+    private boolean waitForSpace() {
+        long remainingTime = mBlockTimeout;
+        try {
+            while (isFull() && remainingTime > 0 && !mDie) {
+                remainingTime = mSpaceAvailable.awaitNanos(remainingTime);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return !isFull() && !mDie;
+    }
+
+    public <Result, Progress> boolean remove(Task<Result, Progress> task) {
+        mLock.lock();
+        try {
+            if (mDie) {
+                throw new IllegalStateException("Queue is die!");
+            }
+
+            boolean removed = mTasks.remove(task);
+            if (removed) {
+                notifyDepthChanged(mSize.decrementAndGet());
+                mSpaceAvailable.signal();
+            }
+            return removed;
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * A task taken from this queue finished its execution, workers must call this method so
+     * queues that limit the concurrency of its tasks could dispatch the next ones
+     *
+     * @param task task that finished
+     */
+    public void release(Task task) {
+        mLock.lock();
+        try {
+            if (mTasks.release(task)) {
+                mTaskAvailable.signal();
+            }
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    private void notifyDepthChanged(int depth) {
+        if (mMetrics.isEnabled()) {
+            mMetrics.onQueueDepthChanged(mId, depth);
         }
-        return removed;
     }
 
     public int waiters() {
@@ -67,14 +277,32 @@ class AwexTaskQueue {
         return mId;
     }
 
-    public synchronized void destroy() {
-        synchronized (this) {
+    /**
+     * Indicates if tasks are ordered by deadline, in that case expired tasks are dropped when
+     * dequeued so no timer is needed to enforce the queue timeout
+     */
+    public boolean isDeadlineOrdered() {
+        return mDeadlineOrdered;
+    }
+
+    public int getOverflowStrategy() {
+        return mOverflowStrategy;
+    }
+
+    public void destroy() {
+        Collection<Task> tasks;
+        mLock.lock();
+        try {
             mDie = true;
+            tasks = mTasks.drain();
+            mSize.set(0);
+            mSpaceAvailable.signalAll();
+        } finally {
+            mLock.unlock();
         }
 
-        for (Task task : mTaskQueue) {
+        for (Task task : tasks) {
             task.getPromise().cancelTask();
         }
-        mTaskQueue.clear();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,221 @@
+package com.raycoarana.awex;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stops submitting tasks that use a failing dependency. The outcomes of the last completed
+ * tasks are kept in a lock-free sliding window, when the failure rate reaches the threshold the
+ * circuit opens and new tasks are rejected with a CircuitOpenException without being queued.
+ * After the open duration the circuit is half-open and only a limited number of trial tasks are
+ * submitted: if all of them succeed the circuit closes, if any fails it opens again. Outcomes
+ * of tasks submitted before the last change of state are ignored, so tasks that were already
+ * running when the circuit opened are not taken as trials.
+ *
+ * @see Awex#submit(Task, CircuitBreaker)
+ */
+public class CircuitBreaker {
+
+    public static final int STATE_CLOSED = 0;
+    public static final int STATE_OPEN = 1;
+    public static final int STATE_HALF_OPEN = 2;
+
+    private static final int DEFAULT_WINDOW_SIZE = 20;
+    private static final double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5;
+    private static final int DEFAULT_OPEN_DURATION = 5000;
+    private static final int DEFAULT_HALF_OPEN_TRIALS = 3;
+
+    static final long NO_PERMIT = -1;
+
+    private static final int STATE_MASK = 3;
+    private static final int STATE_BITS = 2;
+
+    private static final int OUTCOME_NONE = 0;
+    private static final int OUTCOME_SUCCESS = 1;
+    private static final int OUTCOME_FAILURE = 2;
+
+    private final int mWindowSize;
+    private final double mFailureRateThreshold;
+    private final long mOpenDuration;
+    private final int mHalfOpenTrials;
+
+    //current state in the lower bits and number of changes of state in the upper ones
+    private final AtomicLong mState = new AtomicLong(STATE_CLOSED);
+    private final AtomicIntegerArray mOutcomes;
+    private final AtomicLong mNextOutcome = new AtomicLong();
+    private final AtomicInteger mCalls = new AtomicInteger();
+    private final AtomicInteger mFailures = new AtomicInteger();
+    private final AtomicLong mOpenTime = new AtomicLong();
+    private final AtomicInteger mTrials = new AtomicInteger();
+    private final AtomicInteger mTrialSuccesses = new AtomicInteger();
+
+    public CircuitBreaker() {
+        this(DEFAULT_WINDOW_SIZE, DEFAULT_FAILURE_RATE_THRESHOLD, DEFAULT_OPEN_DURATION, DEFAULT_HALF_OPEN_TRIALS);
+    }
+
+    /**
+     * Creates a new circuit breaker
+     *
+     * @param windowSize           number of last outcomes used to compute the failure rate, the
+     *                             circuit doesn't open until the window is full
+     * @param failureRateThreshold failure rate, from 0 to 1, that opens the circuit
+     * @param openDuration         time in milliseconds the circuit is open before trying again
+     * @param halfOpenTrials       number of trial tasks submitted while half-open
+     */
+    public CircuitBreaker(int windowSize, double failureRateThreshold, int openDuration, int halfOpenTrials) {
+        if (windowSize <= 0 || halfOpenTrials <= 0) {
+            throw new IllegalArgumentException("Window size and half-open trials must be > 0");
+        }
+        if (failureRateThreshold <= 0 || failureRateThreshold > 1) {
+            throw new IllegalArgumentException("Failure rate threshold must be in (0, 1]");
+        }
+
+        mWindowSize = windowSize;
+        mFailureRateThreshold = failureRateThreshold;
+        mOpenDuration = openDuration * 1000000L;
+        mHalfOpenTrials = halfOpenTrials;
+        mOutcomes = new AtomicIntegerArray(windowSize);
+    }
+
+    public int getState() {
+        return stateOf(mState.get());
+    }
+
+    private static int stateOf(long state) {
+        return (int) (state & STATE_MASK);
+    }
+
+    /**
+     * Gets the failure rate of the outcomes in the sliding window
+     *
+     * @return failure rate, from 0 to 1
+     */
+    public double getFailureRate() {
+        int calls = mCalls.get();
+        return calls == 0 ? 0 : (double) mFailures.get() / calls;
+    }
+
+    /**
+     * Override this method to decide which exceptions count as failures of the dependency
+     *
+     * @param exception exception that rejected the task
+     * @return true if it is a failure, false if it must be ignored
+     */
+    protected boolean isFailure(Exception exception) {
+        return true;
+    }
+
+    /**
+     * Checks if a new task could be submitted
+     *
+     * @return permit that must be passed with the outcome of the task, or NO_PERMIT if the
+     * task must be rejected
+     */
+    long tryAcquire() {
+        long state = mState.get();
+        if (stateOf(state) == STATE_OPEN) {
+            if (now() - mOpenTime.get() < mOpenDuration) {
+                return NO_PERMIT;
+            }
+            if (changeState(state, STATE_HALF_OPEN)) {
+                mTrials.set(0);
+                mTrialSuccesses.set(0);
+            }
+            state = mState.get();
+        }
+        switch (stateOf(state)) {
+            case STATE_HALF_OPEN:
+                return mTrials.incrementAndGet() <= mHalfOpenTrials ? state : NO_PERMIT;
+            case STATE_CLOSED:
+                return state;
+            default:
+                return NO_PERMIT;
+        }
+    }
+
+    void onSuccess(long permit) {
+        if (permit != mState.get()) {
+            return;
+        }
+
+        if (stateOf(permit) == STATE_HALF_OPEN) {
+            if (mTrialSuccesses.incrementAndGet() >= mHalfOpenTrials && changeState(permit, STATE_CLOSED)) {
+                resetWindow();
+            }
+        } else {
+            record(OUTCOME_SUCCESS);
+        }
+    }
+
+    void onFailure(long permit, Exception exception) {
+        if (!isFailure(exception)) {
+            onIgnored(permit);
+            return;
+        }
+        if (permit != mState.get()) {
+            return;
+        }
+
+        if (stateOf(permit) == STATE_HALF_OPEN) {
+            open(permit);
+            return;
+        }
+
+        record(OUTCOME_FAILURE);
+        int calls = mCalls.get();
+        if (calls >= mWindowSize && mFailures.get() >= mFailureRateThreshold * calls) {
+            open(permit);
+        }
+    }
+
+    /**
+     * The task ended without an outcome (e.g. it was cancelled), if it was a trial another one
+     * could be submitted
+     */
+    void onIgnored(long permit) {
+        if (permit == mState.get() && stateOf(permit) == STATE_HALF_OPEN) {
+            mTrials.decrementAndGet();
+        }
+    }
+
+    private void open(long fromState) {
+        mOpenTime.set(now());
+        changeState(fromState, STATE_OPEN);
+    }
+
+    private boolean changeState(long fromState, int toState) {
+        long changes = (fromState >>> STATE_BITS) + 1;
+        return mState.compareAndSet(fromState, changes << STATE_BITS | toState);
+    }
+
+    private void record(int outcome) {
+        int index = (int) (mNextOutcome.getAndIncrement() % mWindowSize);
+        int oldOutcome = mOutcomes.getAndSet(index, outcome);
+        if (oldOutcome == OUTCOME_NONE) {
+            mCalls.incrementAndGet();
+        } else if (oldOutcome == OUTCOME_FAILURE) {
+            mFailures.decrementAndGet();
+        }
+        if (outcome == OUTCOME_FAILURE) {
+            mFailures.incrementAndGet();
+        }
+    }
+
+    private void resetWindow() {
+        for (int i = 0; i < mWindowSize; i++) {
+            int oldOutcome = mOutcomes.getAndSet(i, OUTCOME_NONE);
+            if (oldOutcome != OUTCOME_NONE) {
+                mCalls.decrementAndGet();
+            }
+            if (oldOutcome == OUTCOME_FAILURE) {
+                mFailures.decrementAndGet();
+            }
+        }
+    }
+
+    long now() {
+        return System.nanoTime();
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.raycoarana.awex;
+
+/**
+ * Structured logging path used to trace state transitions of tasks, promises and workers.
+ * Events are identified by a code from LogEvent plus two primitive arguments, so logging an
+ * event doesn't need to build any message.
+ *
+ * Awex uses the Logger provided at construction time if it implements this interface, any
+ * other Logger gets events formatted synchronously when it is enabled.
+ *
+ * @see com.raycoarana.awex.logger.RingBufferLogger for an asynchronous implementation
+ */
+public interface EventLogger {
+
+    boolean isEnabled();
+
+    /**
+     * Logs an event
+     *
+     * @param event code of the event, one of the LogEvent constants
+     * @param id    id of the entity that produces the event (task, promise or worker)
+     * @param value argument of the event, its meaning depends on the event
+     */
+    void log(int event, long id, long value);
+
+}
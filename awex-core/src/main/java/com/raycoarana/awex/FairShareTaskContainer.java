@@ -0,0 +1,177 @@
+package com.raycoarana.awex;
+
+import com.raycoarana.awex.util.Map;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * Keeps a sub-queue for each group of tasks and schedules the groups with deficit round-robin,
+ * every turn a group could execute as many tasks as its weight. Groups that reached its
+ * maximum concurrency are skipped until one of its tasks finishes. A group without options is
+ * forgotten once it has no tasks queued or running, so groups named after short lived keys
+ * don't accumulate.
+ */
+class FairShareTaskContainer implements TaskContainer {
+
+    private final Comparator<Task> mComparator;
+    private final QueueOptions mOptions;
+    private final Map<String, Group> mGroups = Map.Provider.get();
+    private final ArrayDeque<Group> mActiveGroups = new ArrayDeque<>();
+
+    private static class Group {
+        private final String mName;
+        private final PriorityTaskContainer mTasks;
+        private final int mWeight;
+        private final int mMaxConcurrency;
+        private final boolean mConfigured;
+        private int mSize;
+        private int mRunning;
+        private int mDeficit;
+
+        private Group(String name, Comparator<Task> comparator, int weight, int maxConcurrency,
+                      boolean configured) {
+            mName = name;
+            mTasks = new PriorityTaskContainer(comparator);
+            mWeight = weight;
+            mMaxConcurrency = maxConcurrency;
+            mConfigured = configured;
+        }
+
+        private boolean isFull() {
+            return mMaxConcurrency > 0 && mRunning >= mMaxConcurrency;
+        }
+
+        private boolean isEvictable() {
+            return !mConfigured && mSize == 0 && mRunning == 0;
+        }
+    }
+
+    public FairShareTaskContainer(Comparator<Task> comparator, QueueOptions options) {
+        mComparator = comparator;
+        mOptions = options;
+    }
+
+    private Group getGroup(Task task) {
+        String groupName = task.getGroup();
+        Group group = mGroups.get(groupName);
+        if (group == null) {
+            group = new Group(groupName, mComparator,
+                    mOptions.getGroupWeight(groupName),
+                    mOptions.getGroupMaxConcurrency(groupName),
+                    mOptions.hasGroupOptions(groupName));
+            mGroups.put(groupName, group);
+        }
+        return group;
+    }
+
+    private void evictIfUnused(Group group) {
+        if (group.isEvictable()) {
+            mGroups.remove(group.mName);
+        }
+    }
+
+    @Override
+    public void add(Task task) {
+        Group group = getGroup(task);
+        group.mTasks.add(task);
+        group.mSize++;
+        if (group.mSize == 1) {
+            mActiveGroups.addLast(group);
+        }
+    }
+
+    @Override
+    public Task poll() {
+        int skippedGroups = 0;
+        while (skippedGroups < mActiveGroups.size()) {
+            Group group = mActiveGroups.peekFirst();
+            if (group.isFull()) {
+                mActiveGroups.addLast(mActiveGroups.pollFirst());
+                skippedGroups++;
+                continue;
+            }
+
+            if (group.mDeficit <= 0) {
+                group.mDeficit += group.mWeight;
+            }
+            Task task = group.mTasks.poll();
+            group.mSize--;
+            group.mDeficit--;
+            group.mRunning++;
+            if (group.mSize == 0) {
+                mActiveGroups.pollFirst();
+                group.mDeficit = 0;
+            } else if (group.mDeficit <= 0) {
+                mActiveGroups.addLast(mActiveGroups.pollFirst());
+            }
+            return task;
+        }
+        return null;
+    }
+
+    @Override
+    public boolean remove(Task task) {
+        Group group = mGroups.get(task.getGroup());
+        if (group == null || !group.mTasks.remove(task)) {
+            return false;
+        }
+
+        group.mSize--;
+        if (group.mSize == 0) {
+            mActiveGroups.remove(group);
+            group.mDeficit = 0;
+            evictIfUnused(group);
+        }
+        return true;
+    }
+
+    @Override
+    public Task findLast(Comparator<Task> comparator) {
+        Task lastTask = null;
+        for (Group group : mActiveGroups) {
+            Task task = group.mTasks.findLast(comparator);
+            if (lastTask == null || comparator.compare(task, lastTask) > 0) {
+                lastTask = task;
+            }
+        }
+        return lastTask;
+    }
+
+    @Override
+    public boolean release(Task task) {
+        Group group = mGroups.get(task.getGroup());
+        if (group == null) {
+            return false;
+        }
+
+        boolean wasFull = group.isFull();
+        group.mRunning--;
+        evictIfUnused(group);
+        return wasFull && group.mSize > 0;
+    }
+
+    /**
+     * Number of groups known by the container, the ones with options or with tasks queued or
+     * running
+     */
+    int numberOfGroups() {
+        return mGroups.size();
+    }
+
+    @Override
+    public Collection<Task> drain() {
+        Collection<Task> tasks = new ArrayList<>();
+        for (Group group : mActiveGroups) {
+            tasks.addAll(group.mTasks.drain());
+            group.mSize = 0;
+            group.mDeficit = 0;
+            evictIfUnused(group);
+        }
+        mActiveGroups.clear();
+        return tasks;
+    }
+
+}
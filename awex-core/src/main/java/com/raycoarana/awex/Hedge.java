@@ -0,0 +1,205 @@
+package com.raycoarana.awex;
+
+import com.raycoarana.awex.callbacks.CancelCallback;
+import com.raycoarana.awex.callbacks.DoneCallback;
+import com.raycoarana.awex.callbacks.FailCallback;
+import com.raycoarana.awex.metrics.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimerTask;
+
+/**
+ * Submits a task and, if it doesn't complete within the hedge delay, speculative copies of it
+ * until one of them completes or the maximum number of copies is reached. The first result
+ * resolves the promise and the remaining copies are cancelled. A copy that fails, or that the
+ * task factory fails to create, launches the next one without waiting for the delay. Copies are
+ * created in the callback thread once the delay expires, never in the timer of the pool.
+ *
+ * When a latency histogram is given the delay is taken from its 95th percentile and the
+ * latency of every copy that completes is recorded in it. While the histogram has not enough
+ * samples no speculative copy is launched.
+ */
+class Hedge<Result, Progress> {
+
+    private static final double DELAY_PERCENTILE = 95;
+    private static final int MIN_SAMPLES = 20;
+    private static final long NO_DELAY = -1;
+
+    private final Awex mAwex;
+    private final TaskFactory<Result, Progress> mTaskFactory;
+    private final long mDelay;
+    private final LatencyHistogram mLatencies;
+    private final int mMaxCopies;
+    private final AwexPromise<Result, Progress> mPromise;
+    private final List<Promise<Result, Progress>> mCopyPromises = new ArrayList<>();
+
+    private int mCopies;
+    private int mEndedCopies;
+    private Exception mLastException;
+    private TimerTask mTimerTask;
+
+    public Hedge(Awex awex, TaskFactory<Result, Progress> taskFactory, long delay, LatencyHistogram latencies,
+                 int maxCopies) {
+        if (maxCopies <= 0) {
+            throw new IllegalArgumentException("Max copies must be > 0");
+        }
+
+        mAwex = awex;
+        mTaskFactory = taskFactory;
+        mDelay = delay;
+        mLatencies = latencies;
+        mMaxCopies = maxCopies;
+        mPromise = new AwexPromise<>(awex);
+        mPromise.cancel(new CancelCallback() {
+            @Override
+            public void onCancel() {
+                stop();
+            }
+        });
+    }
+
+    public Promise<Result, Progress> start() {
+        launch();
+        return mPromise;
+    }
+
+    private void launch() {
+        final int copy;
+        synchronized (this) {
+            if (!mPromise.isPending() || mCopies >= mMaxCopies) {
+                return;
+            }
+            copy = ++mCopies;
+        }
+
+        final long launchTime = System.nanoTime();
+        final Promise<Result, Progress> copyPromise;
+        try {
+            copyPromise = mAwex.submit(mTaskFactory.create(copy));
+        } catch (Exception ex) {
+            onCopyEnded(ex);
+            return;
+        }
+        synchronized (this) {
+            mCopyPromises.add(copyPromise);
+            scheduleNextCopy(copy);
+        }
+        mPromise.dependOn(copyPromise);
+        if (!mPromise.isPending()) {
+            copyPromise.cancelTask(true);
+            return;
+        }
+
+        copyPromise.done(new DoneCallback<Result>() {
+            @Override
+            public void onDone(Result result) {
+                onCopyDone(copyPromise, result, launchTime);
+            }
+        }).fail(new FailCallback() {
+            @Override
+            public void onFail(Exception exception) {
+                onCopyEnded(exception);
+            }
+        }).cancel(new CancelCallback() {
+            @Override
+            public void onCancel() {
+                onCopyEnded(null);
+            }
+        });
+    }
+
+    private void scheduleNextCopy(int copy) {
+        long delay = getDelay();
+        if (copy >= mMaxCopies || delay == NO_DELAY) {
+            return;
+        }
+
+        mTimerTask = new TimerTask() {
+            @Override
+            public void run() {
+                mAwex.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        launch();
+                    }
+                });
+            }
+        };
+        mAwex.scheduleTimer(mTimerTask, delay, 0);
+    }
+
+    private long getDelay() {
+        if (mLatencies == null) {
+            return mDelay;
+        }
+        if (mLatencies.getCount() < MIN_SAMPLES) {
+            return NO_DELAY;
+        }
+        //round up to milliseconds so sub-millisecond latencies don't launch copies immediately
+        return Math.max(1, (mLatencies.getValueAtPercentile(DELAY_PERCENTILE) + 999999L) / 1000000L);
+    }
+
+    private void onCopyDone(Promise<Result, Progress> copyPromise, Result result, long launchTime) {
+        if (mLatencies != null) {
+            mLatencies.record(System.nanoTime() - launchTime);
+        }
+
+        boolean resolved = false;
+        synchronized (mPromise) {
+            if (mPromise.isPending()) {
+                mPromise.resolve(result);
+                resolved = true;
+            }
+        }
+        if (!resolved) {
+            return;
+        }
+
+        List<Promise<Result, Progress>> losers;
+        synchronized (this) {
+            stop();
+            losers = new ArrayList<>(mCopyPromises);
+        }
+        losers.remove(copyPromise);
+        for (Promise<Result, Progress> loser : losers) {
+            loser.cancelTask(true);
+        }
+    }
+
+    private void onCopyEnded(Exception exception) {
+        boolean allEnded;
+        synchronized (this) {
+            mEndedCopies++;
+            if (exception != null) {
+                mLastException = exception;
+            }
+            allEnded = mEndedCopies == mMaxCopies;
+            if (!allEnded) {
+                stop();
+            }
+        }
+
+        if (!allEnded) {
+            launch();
+            return;
+        }
+
+        synchronized (mPromise) {
+            if (mPromise.isPending()) {
+                if (mLastException != null) {
+                    mPromise.reject(mLastException);
+                } else {
+                    mPromise.cancelTask();
+                }
+            }
+        }
+    }
+
+    private synchronized void stop() {
+        if (mTimerTask != null) {
+            mTimerTask.cancel();
+        }
+    }
+
+}
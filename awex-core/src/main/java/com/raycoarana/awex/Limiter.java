@@ -0,0 +1,134 @@
+package com.raycoarana.awex;
+
+import java.util.ArrayDeque;
+
+/**
+ * Limits the number of tasks submitted with it that are in the pool at the same time, e.g. to
+ * protect a backend shared by several queues. Tasks over the limit wait in a FIFO list, out of
+ * any queue and without blocking any thread, and are handed to the pool policy as permits are
+ * released by tasks that end.
+ *
+ * An adaptive limiter changes its limit with AIMD (additive increase, multiplicative
+ * decrease): after as many tasks as the current limit complete, if any of them executed for
+ * longer than the latency threshold the limit is halved, otherwise it is increased by one.
+ *
+ * @see Awex#submit(Task, Limiter)
+ */
+public class Limiter {
+
+    private final int mMinLimit;
+    private final int mMaxLimit;
+    private final long mLatencyThreshold;
+    private final ArrayDeque<Task> mWaitingTasks = new ArrayDeque<>();
+
+    private int mLimit;
+    private int mInUse;
+    private int mWindowCompleted;
+    private boolean mWindowOverThreshold;
+
+    /**
+     * Creates a limiter with a fixed limit
+     *
+     * @param limit maximum number of tasks in the pool at the same time
+     */
+    public Limiter(int limit) {
+        this(limit, limit, 0);
+    }
+
+    /**
+     * Creates an adaptive limiter, it starts with the maximum limit
+     *
+     * @param minLimit         minimum limit
+     * @param maxLimit         maximum limit
+     * @param latencyThreshold execution time in milliseconds over which the limit is decreased
+     */
+    public Limiter(int minLimit, int maxLimit, int latencyThreshold) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Invalid limits, it must be 1 <= minLimit <= maxLimit");
+        }
+
+        mMinLimit = minLimit;
+        mMaxLimit = maxLimit;
+        mLatencyThreshold = latencyThreshold * 1000000L;
+        mLimit = maxLimit;
+    }
+
+    public synchronized int getLimit() {
+        return mLimit;
+    }
+
+    public synchronized int getInUse() {
+        return mInUse;
+    }
+
+    public synchronized int getWaiting() {
+        return mWaitingTasks.size();
+    }
+
+    /**
+     * Takes a permit for the task or adds it to the waiting list
+     *
+     * @param task task to execute
+     * @return true if the task took a permit and must be executed now
+     */
+    synchronized boolean acquire(Task task) {
+        if (mInUse < mLimit && mWaitingTasks.isEmpty()) {
+            mInUse++;
+            task.setLimiterPermit(true);
+            return true;
+        }
+        mWaitingTasks.addLast(task);
+        return false;
+    }
+
+    /**
+     * Releases the permit of a task that ended
+     *
+     * @param task task that ended
+     */
+    synchronized void release(Task task) {
+        if (!task.hasLimiterPermit()) {
+            return;
+        }
+        task.setLimiterPermit(false);
+        mInUse--;
+
+        long executionTime = task.getTiming().getExecutionTime();
+        if (mMinLimit == mMaxLimit || executionTime == TaskTiming.UNKNOWN) {
+            return;
+        }
+        mWindowOverThreshold |= executionTime > mLatencyThreshold;
+        if (++mWindowCompleted >= mLimit) {
+            mLimit = mWindowOverThreshold ? Math.max(mMinLimit, mLimit / 2) : Math.min(mMaxLimit, mLimit + 1);
+            mWindowCompleted = 0;
+            mWindowOverThreshold = false;
+        }
+    }
+
+    /**
+     * Takes a permit for the next waiting task, if any
+     *
+     * @return the next task that must be executed now or null if there is no waiting task or
+     * no permit available
+     */
+    synchronized Task next() {
+        if (mInUse >= mLimit || mWaitingTasks.isEmpty()) {
+            return null;
+        }
+        mInUse++;
+        Task task = mWaitingTasks.pollFirst();
+        task.setLimiterPermit(true);
+        return task;
+    }
+
+    /**
+     * Removes a task that is still waiting for a permit
+     *
+     * @param task task to remove
+     * @return true if the task was waiting
+     */
+    synchronized boolean remove(Task task) {
+        return mWaitingTasks.remove(task);
+    }
+
+}
@@ -0,0 +1,139 @@
+package com.raycoarana.awex;
+
+/**
+ * Codes of the events logged through EventLogger
+ */
+public final class LogEvent {
+
+    /**
+     * Free text message, it has no arguments
+     */
+    public static final int MESSAGE = 0;
+
+    /**
+     * id: id of the task, value: new state of the task
+     */
+    public static final int TASK_STATE_CHANGED = 1;
+
+    /**
+     * id: id of the task of the promise, value: new state of the promise
+     */
+    public static final int PROMISE_STATE_CHANGED = 2;
+
+    /**
+     * id: id of the task of the promise, value: unused
+     */
+    public static final int PROMISE_PROGRESS = 3;
+
+    /**
+     * id: id of the worker, value: unused
+     */
+    public static final int WORKER_STARTING = 4;
+
+    /**
+     * id: id of the worker, value: id of the task
+     */
+    public static final int WORKER_START_TASK = 5;
+
+    /**
+     * id: id of the worker, value: id of the task
+     */
+    public static final int WORKER_END_TASK = 6;
+
+    /**
+     * id: id of the worker, value: unused
+     */
+    public static final int WORKER_DIES = 7;
+
+    private LogEvent() {
+    }
+
+    /**
+     * Builds the human readable message of an event
+     *
+     * @param stringBuilder builder where the message is appended
+     * @param event         code of the event
+     * @param id            id of the entity that produces the event
+     * @param value         argument of the event
+     */
+    public static void format(StringBuilder stringBuilder, int event, long id, long value) {
+        switch (event) {
+            case TASK_STATE_CHANGED:
+                stringBuilder.append("Task ")
+                        .append(id)
+                        .append(" state changed to ")
+                        .append(taskStateName((int) value));
+                break;
+            case PROMISE_STATE_CHANGED:
+                stringBuilder.append("Promise of task ")
+                        .append(id)
+                        .append(" changed to state ")
+                        .append(promiseStateName((int) value));
+                break;
+            case PROMISE_PROGRESS:
+                stringBuilder.append("Promise of task ")
+                        .append(id)
+                        .append(" progress");
+                break;
+            case WORKER_STARTING:
+                stringBuilder.append("Worker ")
+                        .append(id)
+                        .append(" starting...");
+                break;
+            case WORKER_START_TASK:
+                stringBuilder.append("Worker ")
+                        .append(id)
+                        .append(" start executing task ")
+                        .append(value);
+                break;
+            case WORKER_END_TASK:
+                stringBuilder.append("Worker ")
+                        .append(id)
+                        .append(" ends executing task ")
+                        .append(value);
+                break;
+            case WORKER_DIES:
+                stringBuilder.append("Worker ")
+                        .append(id)
+                        .append(" dies");
+                break;
+            default:
+                stringBuilder.append("Unknown event ")
+                        .append(event);
+                break;
+        }
+    }
+
+    private static String taskStateName(int state) {
+        switch (state) {
+            case Task.STATE_NOT_QUEUE:
+                return "NOT_QUEUE";
+            case Task.STATE_QUEUE:
+                return "QUEUE";
+            case Task.STATE_RUNNING:
+                return "RUNNING";
+            case Task.STATE_FINISHED:
+                return "FINISHED";
+            case Task.STATE_CANCELLING:
+                return "CANCELLING";
+            case Task.STATE_CANCELLED:
+                return "CANCELLED";
+            default:
+                return "NOT_INITIALIZED";
+        }
+    }
+
+    private static String promiseStateName(int state) {
+        switch (state) {
+            case Promise.STATE_PENDING:
+                return "PENDING";
+            case Promise.STATE_RESOLVED:
+                return "RESOLVED";
+            case Promise.STATE_REJECTED:
+                return "REJECTED";
+            default:
+                return "CANCELLED";
+        }
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.raycoarana.awex;
+
+/**
+ * Adapter that formats events synchronously and sends them to a plain Logger
+ */
+class LoggerEventLogger implements EventLogger {
+
+    private final Logger mLogger;
+
+    public LoggerEventLogger(Logger logger) {
+        mLogger = logger;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return mLogger.isEnabled();
+    }
+
+    @Override
+    public void log(int event, long id, long value) {
+        StringBuilder stringBuilder = new StringBuilder();
+        LogEvent.format(stringBuilder, event, id, value);
+        mLogger.v(stringBuilder.toString());
+    }
+
+}
@@ -0,0 +1,122 @@
+package com.raycoarana.awex;
+
+/**
+ * Observability hooks for the pool. All timestamps are taken with System.nanoTime() at the
+ * moment of the state transition and durations are expressed in nanoseconds.
+ *
+ * Hooks are invoked synchronously in the thread that produces the event (submitter, worker or
+ * callback thread), so implementations must be thread safe and must not block. When
+ * isEnabled() returns false no timestamp is taken and no hook is invoked.
+ *
+ * @see com.raycoarana.awex.metrics.InMemoryMetrics for a default implementation
+ * @see com.raycoarana.awex.metrics.NoMetrics for a disabled implementation
+ */
+public interface Metrics {
+
+    boolean isEnabled();
+
+    /**
+     * A task was submitted to the pool
+     *
+     * @param task      submitted task
+     * @param timestamp moment of the submission
+     */
+    void onTaskSubmitted(Task task, long timestamp);
+
+    /**
+     * A task was put in a queue
+     *
+     * @param task      queued task
+     * @param queueId   id of the queue or -1 if the task is not queued in a regular queue
+     *                  (executed immediately or merged with other task)
+     * @param timestamp moment when the task entered the queue
+     */
+    void onTaskQueued(Task task, int queueId, long timestamp);
+
+    /**
+     * A worker starts executing a task
+     *
+     * @param task          task that starts
+     * @param timestamp     moment when execution starts
+     * @param queueWaitTime time the task was waiting in the queue
+     */
+    void onTaskStarted(Task task, long timestamp, long queueWaitTime);
+
+    /**
+     * A task finished its execution, either resolving or rejecting its promise
+     *
+     * @param task          task that finished
+     * @param timestamp     moment when execution ends
+     * @param executionTime time spent executing the task
+     */
+    void onTaskFinished(Task task, long timestamp, long executionTime);
+
+    /**
+     * The first done, fail or always callback of the promise of a task was delivered, either
+     * one of the user or one the pool registers itself
+     *
+     * @param task                 task whose promise delivered the callback
+     * @param timestamp            moment of the delivery
+     * @param callbackDeliveryTime time between the end of the execution of the task and the
+     *                             delivery of the callback
+     * @see TaskTiming#getFirstCallbackTime()
+     */
+    void onTaskCallbackDelivered(Task task, long timestamp, long callbackDeliveryTime);
+
+    /**
+     * A task was requested to cancel
+     *
+     * @param task      task being cancelled
+     * @param timestamp moment of the cancellation
+     */
+    void onTaskCancelled(Task task, long timestamp);
+
+    /**
+     * A task timed out while waiting in a queue
+     *
+     * @param task      task that timed out
+     * @param timestamp moment of the timeout
+     */
+    void onTaskQueueTimeout(Task task, long timestamp);
+
+    /**
+     * A task timed out while executing
+     *
+     * @param task      task that timed out
+     * @param timestamp moment of the timeout
+     */
+    void onTaskExecutionTimeout(Task task, long timestamp);
+
+    /**
+     * Number of tasks waiting in a queue changed
+     *
+     * @param queueId id of the queue
+     * @param depth   current number of tasks in the queue
+     */
+    void onQueueDepthChanged(int queueId, int depth);
+
+    /**
+     * A worker finished executing a task
+     *
+     * @param workerId id of the worker
+     * @param busyTime time the worker spent executing the task
+     */
+    void onWorkerBusy(int workerId, long busyTime);
+
+    /**
+     * A worker received a task after waiting for it
+     *
+     * @param workerId id of the worker
+     * @param idleTime time the worker spent waiting for the task
+     */
+    void onWorkerIdle(int workerId, long idleTime);
+
+    /**
+     * A callback dispatched to other thread (UI thread or callback executor) started its
+     * execution
+     *
+     * @param latency time between the dispatch and the start of the callback
+     */
+    void onCallbackDispatched(long latency);
+
+}
@@ -0,0 +1,134 @@
+package com.raycoarana.awex;
+
+import com.raycoarana.awex.callbacks.CancelCallback;
+import com.raycoarana.awex.callbacks.DoneCallback;
+import com.raycoarana.awex.callbacks.FailCallback;
+
+import java.util.TimerTask;
+
+/**
+ * Submits a task periodically to the pool reusing it between executions. The promise of the
+ * schedule is notified with the result of each execution as progress, it is rejected with the
+ * error of the first execution that fails and cancelling it stops the schedule. An execution
+ * cancelled by the pool, like on a timeout, is skipped and the schedule goes on.
+ */
+class PeriodicSchedule<Result, Progress> {
+
+    private final Awex mAwex;
+    private final Task<Result, Progress> mTask;
+    private final long mPeriod;
+    private final boolean mFixedRate;
+    private final AwexPromise<Void, Result> mPromise;
+
+    private TimerTask mTimerTask;
+
+    public PeriodicSchedule(Awex awex, Task<Result, Progress> task, long period, boolean fixedRate) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Period must be > 0");
+        }
+
+        mAwex = awex;
+        mTask = task;
+        mPeriod = period;
+        mFixedRate = fixedRate;
+        mPromise = new AwexPromise<>(awex);
+        mPromise.cancel(new CancelCallback() {
+            @Override
+            public void onCancel() {
+                stop();
+                if (mTask.getState() != Task.STATE_NOT_INITIALIZED) {
+                    mTask.getPromise().cancelTask();
+                }
+            }
+        });
+        if (!fixedRate) {
+            mTask.setEndListener(new Runnable() {
+                @Override
+                public void run() {
+                    onExecutionEnded();
+                }
+            });
+        }
+    }
+
+    public Promise<Void, Result> start(long initialDelay) {
+        scheduleNext(initialDelay, mFixedRate ? mPeriod : 0);
+        return mPromise;
+    }
+
+    /**
+     * Arms the timer of the pool, that only hands each execution to the callback thread so no
+     * code of the task or the policy runs in the timer
+     */
+    private synchronized void scheduleNext(long delay, long period) {
+        mTimerTask = new TimerTask() {
+            @Override
+            public void run() {
+                mAwex.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        execute();
+                    }
+                });
+            }
+        };
+        mAwex.scheduleTimer(mTimerTask, delay, period);
+    }
+
+    private synchronized void stop() {
+        mTimerTask.cancel();
+        mTask.setEndListener(null);
+    }
+
+    private synchronized void onExecutionEnded() {
+        //with a fixed delay the next execution is armed once the previous one has ended, even if
+        //it was cancelled by the pool, so the task is always completed when it fires
+        if (mPromise.isPending()) {
+            scheduleNext(mPeriod, 0);
+        }
+    }
+
+    private void execute() {
+        try {
+            synchronized (this) {
+                if (!mPromise.isPending()) {
+                    return;
+                }
+
+                if (mTask.getState() != Task.STATE_NOT_INITIALIZED) {
+                    if (!mTask.isCompleted()) {
+                        //previous execution is still in progress, skip this tick of the fixed rate
+                        return;
+                    }
+                    mTask.reset();
+                }
+            }
+
+            mAwex.submit(mTask).done(new DoneCallback<Result>() {
+                @Override
+                public void onDone(Result result) {
+                    synchronized (PeriodicSchedule.this) {
+                        if (mPromise.isPending()) {
+                            mPromise.notifyProgress(result);
+                        }
+                    }
+                }
+            }).fail(new FailCallback() {
+                @Override
+                public void onFail(Exception exception) {
+                    fail(exception);
+                }
+            });
+        } catch (Exception ex) {
+            fail(ex);
+        }
+    }
+
+    private synchronized void fail(Exception exception) {
+        if (mPromise.isPending()) {
+            stop();
+            mPromise.reject(exception);
+        }
+    }
+
+}
@@ -3,6 +3,7 @@ package com.raycoarana.awex;
 public interface PoolManager {
 
     void createQueue(int queueId);
+    void createQueue(int queueId, QueueOptions options);
     void removeQueue(int queueId);
 
     void executeImmediately(Task task);
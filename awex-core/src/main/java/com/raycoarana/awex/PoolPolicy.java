@@ -20,6 +20,16 @@ public abstract class PoolPolicy {
         mPoolManager.createQueue(queueId);
     }
 
+    /**
+     * Creates a new queue in the pool with the provided options
+     *
+     * @param queueId id of the queue
+     * @param options options of the queue, like the order of its tasks
+     */
+    public void createQueue(int queueId, QueueOptions options) {
+        mPoolManager.createQueue(queueId, options);
+    }
+
     /**
      * Removes the queue from the pool, any worker associated with that queue will be interrupted
      *
@@ -129,6 +139,16 @@ public abstract class PoolPolicy {
      */
     public abstract void onTaskFinished(PoolState poolState, Task task);
 
+    /**
+     * Event dispatched from the thread of a new worker, after setting up its priority and before
+     * it starts executing tasks. Policy could set up the thread, like its CPU affinity.
+     *
+     * @param queueId  id of the queue of the worker
+     * @param workerId id of the worker
+     */
+    public void onWorkerStarted(int queueId, int workerId) {
+    }
+
     /**
      * Event dispatched when a task in a queue timeout. The task is removed from the queue and
      * it will not be executed again. It's policy responsibility to reschedule or cancel the task
@@ -148,4 +168,18 @@ public abstract class PoolPolicy {
      */
     public abstract void onTaskExecutionTimeout(PoolState poolState, Task task);
 
+    /**
+     * Event dispatched when a task is queued in a full queue (@see QueueOptions#setCapacity).
+     * After this event the overflow strategy of the queue is applied to the task, so the task
+     * will be rejected or executed in the thread that queued it. Policy could use it to degrade
+     * gracefully under overload, like adding workers or rerouting next tasks.
+     *
+     * @param poolState thread pool state
+     * @param queueId   id of the full queue
+     * @param task      task that overflowed the queue, it could be the queued task or other task
+     *                  dropped from the queue to make space for it
+     */
+    public void onQueueFull(PoolState poolState, int queueId, Task task) {
+    }
+
 }
\ No newline at end of file
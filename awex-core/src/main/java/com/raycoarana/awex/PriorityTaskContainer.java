@@ -0,0 +1,56 @@
+package com.raycoarana.awex;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+class PriorityTaskContainer implements TaskContainer {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private final PriorityQueue<Task> mTasks;
+
+    public PriorityTaskContainer(Comparator<Task> comparator) {
+        mTasks = new PriorityQueue<>(INITIAL_CAPACITY, comparator);
+    }
+
+    @Override
+    public void add(Task task) {
+        mTasks.offer(task);
+    }
+
+    @Override
+    public Task poll() {
+        return mTasks.poll();
+    }
+
+    @Override
+    public boolean remove(Task task) {
+        return mTasks.remove(task);
+    }
+
+    @Override
+    public Task findLast(Comparator<Task> comparator) {
+        Task lastTask = null;
+        for (Task task : mTasks) {
+            if (lastTask == null || comparator.compare(task, lastTask) > 0) {
+                lastTask = task;
+            }
+        }
+        return lastTask;
+    }
+
+    @Override
+    public boolean release(Task task) {
+        return false;
+    }
+
+    @Override
+    public Collection<Task> drain() {
+        Collection<Task> tasks = new ArrayList<>(mTasks);
+        mTasks.clear();
+        return tasks;
+    }
+
+}
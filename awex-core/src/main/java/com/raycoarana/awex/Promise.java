@@ -10,6 +10,9 @@ import com.raycoarana.awex.transform.Filter;
 import com.raycoarana.awex.transform.Mapper;
 
 import java.util.Collection;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public interface Promise<Result, Progress> {
 
@@ -33,6 +36,22 @@ public interface Promise<Result, Progress> {
      */
     int STATE_CANCELLED = 3;
 
+    /**
+     * Execution hint: the continuation is executed in the thread that completes the promise, or
+     * in the current thread if it is already completed
+     */
+    int EXECUTE_INLINE = 0;
+
+    /**
+     * Execution hint: the continuation is executed as a task in the pool
+     */
+    int EXECUTE_POOL = 1;
+
+    /**
+     * Execution hint: the continuation is executed in the UI thread
+     */
+    int EXECUTE_UI = 2;
+
     /**
      * Cancels the task associated with the promise, no callbacks will be executed after the execution of this method
      * and even dispatched callbacks to UI thread will be mark to be ignored. You could expect no side effects of any
@@ -74,6 +93,18 @@ public interface Promise<Result, Progress> {
      */
     Result getResult() throws Exception;
 
+    /**
+     * Same as getResult() but waiting at most the given timeout
+     *
+     * @param timeout maximum time to wait
+     * @param unit    unit of the timeout
+     * @return the result of the task if any
+     * @throws TimeoutException      if the promise is still pending after the timeout
+     * @throws IllegalStateException if the state of the promise is STATE_CANCELLED
+     * @throws Exception             an exception if the task fails to execute
+     */
+    Result getResult(long timeout, TimeUnit unit) throws Exception;
+
     /**
      * Will block the current thread until the promise if resolved, rejected or cancelled. It will return
      * the value of the promise in case of resolved or return the defaultValue in any other case.
@@ -96,6 +127,17 @@ public interface Promise<Result, Progress> {
 
     <R, P> Promise<R, P> then(ThenCallback<Result, R, P> callback);
 
+    /**
+     * Executes the callback when this promise is resolved in the thread given by the execution
+     * hint. Inline continuations of a chain are executed without any context switch, when the
+     * chain is too deep they are deferred until the stack unwinds so it never overflows.
+     *
+     * @param callback      callback that returns the next promise of the chain
+     * @param executionHint one of EXECUTE_INLINE, EXECUTE_POOL or EXECUTE_UI
+     * @return a promise resolved with the promise returned by the callback
+     */
+    <R, P> Promise<R, P> then(ThenCallback<Result, R, P> callback, int executionHint);
+
     /**
      * Returns a promise that will be resolved with the value of the first resolved promise or
      * fail if both promises (current and provided as parameter) fails
@@ -123,6 +165,28 @@ public interface Promise<Result, Progress> {
      */
     Promise<Result, Progress> pipe(Promise<Result, Progress> promise);
 
+    /**
+     * Returns a promise that will be rejected with a PromiseTimeoutException if this promise is
+     * not completed before the timeout expires. In that case this promise is cancelled unless
+     * other promises depend on it.
+     *
+     * @param timeout time in milliseconds
+     * @return a new promise that will be completed as this promise or rejected on timeout
+     */
+    Promise<Result, Progress> timeout(long timeout);
+
+    /**
+     * Returns a promise that will be resolved with the fallback value if this promise is not
+     * completed before the timeout expires. In that case this promise is cancelled unless other
+     * promises depend on it.
+     *
+     * @param timeout       time in milliseconds
+     * @param fallbackValue value used on timeout
+     * @return a new promise that will be completed as this promise or resolved with the fallback
+     * value on timeout
+     */
+    Promise<Result, Progress> timeout(long timeout, Result fallbackValue);
+
     <U> Promise<U, Progress> mapSingle(Mapper<Result, U> mapper);
 
     /**
@@ -142,4 +206,13 @@ public interface Promise<Result, Progress> {
      */
     <T> CollectionPromise<T, Progress> stream();
 
+    /**
+     * Gets a view of this promise as a Future, to interoperate with APIs that expect one.
+     * Cancelling the future cancels this promise and the future is cancelled when this promise
+     * is cancelled.
+     *
+     * @return the future view of this promise
+     */
+    Future<Result> toFuture();
+
 }
\ No newline at end of file
@@ -0,0 +1,75 @@
+package com.raycoarana.awex;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * View of a promise as a Future. It doesn't register any callback in the promise, so it
+ * doesn't add any allocation or thread hop to the completion of the promise. Cancelling the
+ * future cancels the promise and the future is cancelled when the promise is.
+ */
+class PromiseFuture<Result> implements Future<Result> {
+
+    private final Promise<Result, ?> mPromise;
+
+    public PromiseFuture(Promise<Result, ?> promise) {
+        mPromise = promise;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        if (!mPromise.isPending()) {
+            return false;
+        }
+        mPromise.cancelTask(mayInterruptIfRunning);
+        return mPromise.isCancelled();
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return mPromise.isCancelled();
+    }
+
+    @Override
+    public boolean isDone() {
+        return mPromise.isCompleted();
+    }
+
+    @Override
+    public Result get() throws InterruptedException, ExecutionException {
+        try {
+            return mPromise.getResult();
+        } catch (InterruptedException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw toExecutionException(ex);
+        }
+    }
+
+    @Override
+    public Result get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        try {
+            return mPromise.getResult(timeout, unit);
+        } catch (InterruptedException ex) {
+            throw ex;
+        } catch (TimeoutException ex) {
+            if (!mPromise.isRejected()) {
+                throw ex;
+            }
+            throw toExecutionException(ex);
+        } catch (Exception ex) {
+            throw toExecutionException(ex);
+        }
+    }
+
+    private ExecutionException toExecutionException(Exception ex) {
+        if (mPromise.isCancelled()) {
+            throw new CancellationException();
+        }
+        return new ExecutionException(ex);
+    }
+
+}
@@ -0,0 +1,299 @@
+package com.raycoarana.awex;
+
+import com.raycoarana.awex.util.Map;
+
+/**
+ * Options used to create a queue in the pool
+ *
+ * @see PoolPolicy#createQueue(int, QueueOptions)
+ */
+public class QueueOptions {
+
+    /**
+     * Tasks are ordered only by priority
+     */
+    public static final int ORDER_BY_PRIORITY = 0;
+
+    /**
+     * Tasks are ordered by priority and, inside the same priority, by the absolute deadline
+     * given by its queue timeout (earliest deadline first). Tasks without queue timeout are
+     * executed after any task with a deadline of the same priority. Tasks whose deadline
+     * passed are dropped when dequeued instead of using a timer.
+     */
+    public static final int ORDER_BY_DEADLINE = 1;
+
+    /**
+     * Tasks are ordered by an effective priority that grows by one level every aging interval
+     * the task spends waiting in the queue, so low priority tasks are not starved by a steady
+     * stream of higher priority tasks. Real time tasks are always executed first.
+     *
+     * @see #setAgingInterval(int)
+     */
+    public static final int ORDER_BY_AGED_PRIORITY = 2;
+
+    /**
+     * When the queue is full the new task is rejected with a QueueFullException
+     */
+    public static final int OVERFLOW_REJECT = 0;
+
+    /**
+     * When the queue is full the task that would be executed last is rejected with a
+     * QueueFullException, that could be the new task itself
+     */
+    public static final int OVERFLOW_DROP_LOWEST_PRIORITY = 1;
+
+    /**
+     * When the queue is full the task that has been waiting for longer in the queue is rejected
+     * with a QueueFullException
+     */
+    public static final int OVERFLOW_DROP_OLDEST = 2;
+
+    /**
+     * When the queue is full the new task is executed in the thread that queues it, slowing
+     * down the submitter. Tasks queued from threads of the pool, like workers or the timer, are
+     * rejected with a QueueFullException instead.
+     */
+    public static final int OVERFLOW_CALLER_RUNS = 3;
+
+    /**
+     * When the queue is full the thread that queues the new task is blocked until there is
+     * space in the queue or the block timeout expires, in that case the new task is rejected
+     * with a QueueFullException. Tasks queued from threads of the pool, like workers or the
+     * timer, are rejected immediately instead.
+     *
+     * @see #setBlockTimeout(int)
+     */
+    public static final int OVERFLOW_BLOCK = 4;
+
+    /**
+     * Idle workers park until a task is queued, it saves power but each task queued in an idle
+     * queue pays the latency of waking up a thread
+     */
+    public static final int WAIT_PARK = 0;
+
+    /**
+     * Idle workers spin for a while before parking, first busy waiting and then yielding the
+     * CPU, so tasks queued in that time are dispatched without waking up any thread. Tasks are
+     * queued without signalling a parked worker while there are enough workers spinning.
+     *
+     * @see #setSpinTime(int)
+     */
+    public static final int WAIT_SPIN_THEN_PARK = 1;
+
+    public static final int UNBOUNDED = 0;
+
+    private static final int DEFAULT_AGING_INTERVAL = 1000;
+    private static final int DEFAULT_BLOCK_TIMEOUT = 1000;
+    private static final int DEFAULT_SPIN_TIME = 50;
+
+    private static final int DEFAULT_GROUP_WEIGHT = 1;
+    private static final int NO_CONCURRENCY_LIMIT = 0;
+
+    private int mOrder = ORDER_BY_PRIORITY;
+    private int mAgingInterval = DEFAULT_AGING_INTERVAL;
+    private boolean mFairShare;
+    private int mCapacity = UNBOUNDED;
+    private int mOverflowStrategy = OVERFLOW_REJECT;
+    private int mBlockTimeout = DEFAULT_BLOCK_TIMEOUT;
+    private int mWaitStrategy = WAIT_PARK;
+    private int mSpinTime = DEFAULT_SPIN_TIME;
+    private final Map<String, Integer> mGroupWeights = Map.Provider.get();
+    private final Map<String, Integer> mGroupMaxConcurrency = Map.Provider.get();
+
+    public int getOrder() {
+        return mOrder;
+    }
+
+    /**
+     * Sets how tasks in the queue are ordered
+     *
+     * @param order one of ORDER_BY_PRIORITY, ORDER_BY_DEADLINE or ORDER_BY_AGED_PRIORITY
+     * @return this options
+     */
+    public QueueOptions setOrder(int order) {
+        if (order != ORDER_BY_PRIORITY && order != ORDER_BY_DEADLINE && order != ORDER_BY_AGED_PRIORITY) {
+            throw new IllegalArgumentException("Unknown order " + order);
+        }
+        mOrder = order;
+        return this;
+    }
+
+    public int getAgingInterval() {
+        return mAgingInterval;
+    }
+
+    /**
+     * Sets the time a task must wait in the queue to gain one priority level when the queue is
+     * ordered by aged priority
+     *
+     * @param agingInterval time in milliseconds, by default one second
+     * @return this options
+     */
+    public QueueOptions setAgingInterval(int agingInterval) {
+        if (agingInterval <= 0) {
+            throw new IllegalArgumentException("Aging interval must be > 0");
+        }
+        mAgingInterval = agingInterval;
+        return this;
+    }
+
+    public boolean isFairShare() {
+        return mFairShare;
+    }
+
+    /**
+     * Enables weighted fair share scheduling across the groups of the tasks (@see Task#getGroup).
+     * Each group has its own sub-queue, ordered as configured by setOrder(), and groups take
+     * turns to execute as many tasks as its weight (deficit round-robin).
+     *
+     * @param fairShare true to enable fair share scheduling
+     * @return this options
+     */
+    public QueueOptions setFairShare(boolean fairShare) {
+        mFairShare = fairShare;
+        return this;
+    }
+
+    public int getGroupWeight(String group) {
+        Integer weight = mGroupWeights.get(group);
+        return weight != null ? weight : DEFAULT_GROUP_WEIGHT;
+    }
+
+    /**
+     * Sets the number of tasks of the group executed in each turn of fair share scheduling
+     *
+     * @param group  name of the group
+     * @param weight weight of the group, by default 1
+     * @return this options
+     */
+    public QueueOptions setGroupWeight(String group, int weight) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("Weight must be > 0");
+        }
+        mGroupWeights.put(group, weight);
+        return this;
+    }
+
+    public int getGroupMaxConcurrency(String group) {
+        Integer maxConcurrency = mGroupMaxConcurrency.get(group);
+        return maxConcurrency != null ? maxConcurrency : NO_CONCURRENCY_LIMIT;
+    }
+
+    /**
+     * Sets the maximum number of tasks of the group executing at the same time when fair share
+     * scheduling is enabled. Workers will skip tasks of the group while the limit is reached.
+     *
+     * @param group          name of the group
+     * @param maxConcurrency maximum number of tasks executing, by default there is no limit
+     * @return this options
+     */
+    public QueueOptions setGroupMaxConcurrency(String group, int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("Max concurrency must be > 0");
+        }
+        mGroupMaxConcurrency.put(group, maxConcurrency);
+        return this;
+    }
+
+    /**
+     * Checks if the group has a weight or a maximum concurrency set
+     */
+    boolean hasGroupOptions(String group) {
+        return mGroupWeights.containsKey(group) || mGroupMaxConcurrency.containsKey(group);
+    }
+
+    public int getCapacity() {
+        return mCapacity;
+    }
+
+    /**
+     * Sets the maximum number of tasks waiting in the queue
+     *
+     * @param capacity maximum number of tasks or UNBOUNDED, by default queues are unbounded
+     * @return this options
+     */
+    public QueueOptions setCapacity(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must be >= 0");
+        }
+        mCapacity = capacity;
+        return this;
+    }
+
+    public int getOverflowStrategy() {
+        return mOverflowStrategy;
+    }
+
+    /**
+     * Sets what happens when a task is queued and the queue is full. In any case the policy is
+     * notified with PoolPolicy#onQueueFull
+     *
+     * @param overflowStrategy one of OVERFLOW_REJECT, OVERFLOW_DROP_LOWEST_PRIORITY,
+     *                         OVERFLOW_DROP_OLDEST, OVERFLOW_CALLER_RUNS or OVERFLOW_BLOCK
+     * @return this options
+     */
+    public QueueOptions setOverflowStrategy(int overflowStrategy) {
+        if (overflowStrategy < OVERFLOW_REJECT || overflowStrategy > OVERFLOW_BLOCK) {
+            throw new IllegalArgumentException("Unknown overflow strategy " + overflowStrategy);
+        }
+        mOverflowStrategy = overflowStrategy;
+        return this;
+    }
+
+    public int getBlockTimeout() {
+        return mBlockTimeout;
+    }
+
+    /**
+     * Sets the maximum time a thread is blocked waiting for space in the queue when the
+     * overflow strategy is OVERFLOW_BLOCK
+     *
+     * @param blockTimeout time in milliseconds, by default one second
+     * @return this options
+     */
+    public QueueOptions setBlockTimeout(int blockTimeout) {
+        if (blockTimeout <= 0) {
+            throw new IllegalArgumentException("Block timeout must be > 0");
+        }
+        mBlockTimeout = blockTimeout;
+        return this;
+    }
+
+    public int getWaitStrategy() {
+        return mWaitStrategy;
+    }
+
+    /**
+     * Sets how idle workers of the queue wait for new tasks
+     *
+     * @param waitStrategy WAIT_PARK or WAIT_SPIN_THEN_PARK, by default workers park
+     * @return this options
+     */
+    public QueueOptions setWaitStrategy(int waitStrategy) {
+        if (waitStrategy != WAIT_PARK && waitStrategy != WAIT_SPIN_THEN_PARK) {
+            throw new IllegalArgumentException("Unknown wait strategy " + waitStrategy);
+        }
+        mWaitStrategy = waitStrategy;
+        return this;
+    }
+
+    public int getSpinTime() {
+        return mSpinTime;
+    }
+
+    /**
+     * Sets the maximum time an idle worker spins before parking when the wait strategy is
+     * WAIT_SPIN_THEN_PARK
+     *
+     * @param spinTime time in microseconds, by default 50 microseconds
+     * @return this options
+     */
+    public QueueOptions setSpinTime(int spinTime) {
+        if (spinTime <= 0) {
+            throw new IllegalArgumentException("Spin time must be > 0");
+        }
+        mSpinTime = spinTime;
+        return this;
+    }
+
+}
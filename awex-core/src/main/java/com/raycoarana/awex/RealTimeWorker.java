@@ -5,14 +5,16 @@ class RealTimeWorker implements Runnable {
     private final long mId;
     private final Task mTask;
     private final ThreadHelper mThreadHelper;
-    private final Logger mLogger;
+    private final EventLogger mLogger;
+    private final WorkerListener mListener;
 
-    public RealTimeWorker(long id, Task task, ThreadHelper threadHelper, Logger logger) {
+    public RealTimeWorker(long id, Task task, ThreadHelper threadHelper, EventLogger logger, WorkerListener listener) {
         mId = id;
         Thread thread = new Thread(this, "Awex real-time worker " + id);
         mTask = task;
         mThreadHelper = threadHelper;
         mLogger = logger;
+        mListener = listener;
 
         thread.start();
     }
@@ -21,20 +23,21 @@ class RealTimeWorker implements Runnable {
     public void run() {
         mThreadHelper.setUpPriorityToRealTimeThread();
         if (mLogger.isEnabled()) {
-            mLogger.v("Worker " + mId + " starting...");
+            mLogger.log(LogEvent.WORKER_STARTING, mId, 0);
         }
         try {
             if (mLogger.isEnabled()) {
-                mLogger.v("Worker " + mId + " start executing task " + mTask.getId());
+                mLogger.log(LogEvent.WORKER_START_TASK, mId, mTask.getId());
             }
             mTask.execute();
             if (mLogger.isEnabled()) {
-                mLogger.v("Worker " + mId + " ends executing task " + mTask.getId());
+                mLogger.log(LogEvent.WORKER_END_TASK, mId, mTask.getId());
             }
         } catch (InterruptedException ignored) {
         } finally {
+            mListener.onTaskFinished(mTask);
             if (mLogger.isEnabled()) {
-                mLogger.v("Worker " + mId + " dies");
+                mLogger.log(LogEvent.WORKER_DIES, mId, 0);
             }
         }
     }
@@ -0,0 +1,127 @@
+package com.raycoarana.awex;
+
+import com.raycoarana.awex.callbacks.CancelCallback;
+import com.raycoarana.awex.callbacks.DoneCallback;
+import com.raycoarana.awex.callbacks.FailCallback;
+import com.raycoarana.awex.callbacks.ProgressCallback;
+
+import java.util.TimerTask;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Submits a new task to the pool for each attempt until one of them succeeds or the retry
+ * policy gives up. The delay between attempts is waited in the timer of the pool, so no worker
+ * is blocked while waiting, and the next attempt is created in the callback thread. An attempt
+ * cancelled by the pool, like on a timeout, fails with a CancellationException.
+ */
+class Retry<Result, Progress> {
+
+    private final Awex mAwex;
+    private final TaskFactory<Result, Progress> mTaskFactory;
+    private final RetryPolicy mRetryPolicy;
+    private final AwexPromise<Result, Progress> mPromise;
+
+    private TimerTask mTimerTask;
+
+    public Retry(Awex awex, TaskFactory<Result, Progress> taskFactory, RetryPolicy retryPolicy) {
+        mAwex = awex;
+        mTaskFactory = taskFactory;
+        mRetryPolicy = retryPolicy;
+        mPromise = new AwexPromise<>(awex);
+        mPromise.cancel(new CancelCallback() {
+            @Override
+            public void onCancel() {
+                stop();
+            }
+        });
+    }
+
+    public Promise<Result, Progress> start() {
+        attempt(1);
+        return mPromise;
+    }
+
+    private void attempt(final int attempt) {
+        if (!mPromise.isPending()) {
+            return;
+        }
+
+        Promise<Result, Progress> taskPromise;
+        try {
+            taskPromise = mAwex.submit(mTaskFactory.create(attempt));
+        } catch (Exception ex) {
+            reject(ex);
+            return;
+        }
+        mPromise.dependOn(taskPromise);
+        taskPromise.done(new DoneCallback<Result>() {
+            @Override
+            public void onDone(Result result) {
+                synchronized (mPromise) {
+                    if (mPromise.isPending()) {
+                        mPromise.resolve(result);
+                    }
+                }
+            }
+        }).fail(new FailCallback() {
+            @Override
+            public void onFail(Exception exception) {
+                onAttemptFailed(attempt, exception);
+            }
+        }).progress(new ProgressCallback<Progress>() {
+            @Override
+            public void onProgress(Progress progress) {
+                synchronized (mPromise) {
+                    if (mPromise.isPending()) {
+                        mPromise.notifyProgress(progress);
+                    }
+                }
+            }
+        }).cancel(new CancelCallback() {
+            @Override
+            public void onCancel() {
+                onAttemptFailed(attempt, new CancellationException("Attempt " + attempt + " cancelled"));
+            }
+        });
+    }
+
+    private void onAttemptFailed(final int attempt, Exception exception) {
+        if (attempt >= mRetryPolicy.getMaxAttempts() || !mRetryPolicy.shouldRetry(exception)) {
+            reject(exception);
+            return;
+        }
+
+        synchronized (this) {
+            if (!mPromise.isPending()) {
+                return;
+            }
+            mTimerTask = new TimerTask() {
+                @Override
+                public void run() {
+                    mAwex.submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            attempt(attempt + 1);
+                        }
+                    });
+                }
+            };
+            mAwex.scheduleTimer(mTimerTask, mRetryPolicy.getDelay(attempt), 0);
+        }
+    }
+
+    private void reject(Exception exception) {
+        synchronized (mPromise) {
+            if (mPromise.isPending()) {
+                mPromise.reject(exception);
+            }
+        }
+    }
+
+    private synchronized void stop() {
+        if (mTimerTask != null) {
+            mTimerTask.cancel();
+        }
+    }
+
+}
@@ -0,0 +1,152 @@
+package com.raycoarana.awex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Defines when and how often a failed task is retried
+ *
+ * The delay before each retry grows exponentially from the initial delay by the multiplier,
+ * up to the max delay. A random jitter is subtracted from the delay so clients that failed at
+ * the same time don't retry all together.
+ *
+ * @see Awex#retry(TaskFactory, RetryPolicy)
+ */
+public class RetryPolicy {
+
+    private static final int DEFAULT_MAX_ATTEMPTS = 3;
+    private static final long DEFAULT_INITIAL_DELAY = 100;
+    private static final long DEFAULT_MAX_DELAY = 10000;
+    private static final double DEFAULT_MULTIPLIER = 2.0;
+    private static final double DEFAULT_JITTER = 0.5;
+
+    private final Random mRandom = new Random();
+    private final List<Class<? extends Exception>> mRetryOn = new ArrayList<>();
+    private final List<Class<? extends Exception>> mAbortOn = new ArrayList<>();
+    private int mMaxAttempts = DEFAULT_MAX_ATTEMPTS;
+    private long mInitialDelay = DEFAULT_INITIAL_DELAY;
+    private long mMaxDelay = DEFAULT_MAX_DELAY;
+    private double mMultiplier = DEFAULT_MULTIPLIER;
+    private double mJitter = DEFAULT_JITTER;
+
+    public int getMaxAttempts() {
+        return mMaxAttempts;
+    }
+
+    /**
+     * Sets the maximum number of attempts, including the first one
+     *
+     * @param maxAttempts number of attempts, by default 3
+     * @return this policy
+     */
+    public RetryPolicy setMaxAttempts(int maxAttempts) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("Max attempts must be > 0");
+        }
+        mMaxAttempts = maxAttempts;
+        return this;
+    }
+
+    /**
+     * Sets the delays between attempts
+     *
+     * @param initialDelay delay in milliseconds before the first retry, by default 100 ms
+     * @param maxDelay     maximum delay in milliseconds, by default 10 seconds
+     * @param multiplier   factor applied to the delay after each retry, by default 2
+     * @return this policy
+     */
+    public RetryPolicy setBackoff(long initialDelay, long maxDelay, double multiplier) {
+        if (initialDelay < 0 || maxDelay < initialDelay || multiplier < 1) {
+            throw new IllegalArgumentException("Invalid backoff, it must be 0 <= initialDelay <= maxDelay and multiplier >= 1");
+        }
+        mInitialDelay = initialDelay;
+        mMaxDelay = maxDelay;
+        mMultiplier = multiplier;
+        return this;
+    }
+
+    /**
+     * Sets the maximum fraction of the delay that is randomly subtracted from it
+     *
+     * @param jitter value between 0 (no jitter) and 1 (the delay is random between 0 and the
+     *               computed delay), by default 0.5
+     * @return this policy
+     */
+    public RetryPolicy setJitter(double jitter) {
+        if (jitter < 0 || jitter > 1) {
+            throw new IllegalArgumentException("Jitter must be between 0 and 1");
+        }
+        mJitter = jitter;
+        return this;
+    }
+
+    /**
+     * Retries only when the task fails with any of these exceptions or its subclasses, by
+     * default any exception is retried
+     *
+     * @param exceptions retryable exceptions
+     * @return this policy
+     */
+    @SafeVarargs
+    public final RetryPolicy retryOn(Class<? extends Exception>... exceptions) {
+        for (Class<? extends Exception> exception : exceptions) {
+            mRetryOn.add(exception);
+        }
+        return this;
+    }
+
+    /**
+     * Never retries when the task fails with any of these exceptions or its subclasses
+     *
+     * @param exceptions non retryable exceptions
+     * @return this policy
+     */
+    @SafeVarargs
+    public final RetryPolicy abortOn(Class<? extends Exception>... exceptions) {
+        for (Class<? extends Exception> exception : exceptions) {
+            mAbortOn.add(exception);
+        }
+        return this;
+    }
+
+    /**
+     * Override this method to decide if a failure should be retried
+     *
+     * @param exception cause of the failure
+     * @return true if the task should be retried
+     */
+    public boolean shouldRetry(Exception exception) {
+        if (isInstanceOfAny(exception, mAbortOn)) {
+            return false;
+        }
+        return mRetryOn.isEmpty() || isInstanceOfAny(exception, mRetryOn);
+    }
+
+    private static boolean isInstanceOfAny(Exception exception, List<Class<? extends Exception>> exceptionClasses) {
+        for (Class<? extends Exception> exceptionClass : exceptionClasses) {
+            if (exceptionClass.isInstance(exception)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the delay before the next attempt
+     *
+     * @param failedAttempt number of the attempt that failed, starting at 1
+     * @return delay in milliseconds
+     */
+    public long getDelay(int failedAttempt) {
+        double delay = mInitialDelay * Math.pow(mMultiplier, failedAttempt - 1);
+        delay = Math.min(delay, mMaxDelay);
+        return (long) (delay * (1 - mJitter * nextRandom()));
+    }
+
+    double nextRandom() {
+        synchronized (mRandom) {
+            return mRandom.nextDouble();
+        }
+    }
+}
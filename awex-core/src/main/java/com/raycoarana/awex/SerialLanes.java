@@ -0,0 +1,69 @@
+package com.raycoarana.awex;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+
+/**
+ * Keeps a FIFO lane for each affinity key with the submitted tasks of that key. Only the head
+ * of each lane is handed to the pool policy, the next one is handed when the head ends, so
+ * tasks of the same key are executed one at a time in submission order without using any
+ * dedicated thread. Empty lanes are discarded, so a lane costs only a small deque while it has
+ * pending tasks.
+ */
+class SerialLanes {
+
+    private final HashMap<Object, ArrayDeque<Task>> mLanes = new HashMap<>();
+
+    /**
+     * Adds the task to the lane of its affinity key
+     *
+     * @param task task to add
+     * @return true if the task is the head of its lane and must be executed now
+     */
+    public synchronized boolean enter(Task task) {
+        Object key = task.getAffinityKey();
+        ArrayDeque<Task> lane = mLanes.get(key);
+        if (lane == null) {
+            lane = new ArrayDeque<>();
+            mLanes.put(key, lane);
+        }
+        lane.addLast(task);
+        return lane.size() == 1;
+    }
+
+    /**
+     * The task ended, by finishing its execution or by being removed from the pool
+     *
+     * @param task task that ended
+     * @return next task of the lane that must be executed now or null if there is none
+     */
+    public synchronized Task leave(Task task) {
+        Object key = task.getAffinityKey();
+        ArrayDeque<Task> lane = mLanes.get(key);
+        if (lane == null || lane.peekFirst() != task) {
+            return null;
+        }
+
+        lane.pollFirst();
+        Task nextTask = lane.peekFirst();
+        if (nextTask == null) {
+            mLanes.remove(key);
+        }
+        return nextTask;
+    }
+
+    /**
+     * Removes a task that is still waiting for its turn in the lane
+     *
+     * @param task task to remove
+     * @return true if the task was waiting in the lane
+     */
+    public synchronized boolean remove(Task task) {
+        ArrayDeque<Task> lane = mLanes.get(task.getAffinityKey());
+        if (lane == null || lane.peekFirst() == task) {
+            return false;
+        }
+        return lane.remove(task);
+    }
+
+}
@@ -27,19 +27,35 @@ public abstract class Task<Result, Progress> {
     public static final int PRIORITY_HIGH = 4;
     public static final int PRIORITY_REAL_TIME = Integer.MAX_VALUE;
 
+    public static final String DEFAULT_GROUP = "default";
+
+    public static final int WORKLOAD_UNKNOWN = 0;
+    public static final int WORKLOAD_CPU = 1;
+    public static final int WORKLOAD_IO = 2;
+
+    private static final ThreadLocal<Task> sCurrentTask = new ThreadLocal<>();
+
     private final int mPriority;
 
     private Awex mAwex;
     private long mId;
-    private Logger mLogger;
+    private EventLogger mLogger;
+    private Metrics mMetrics;
+    private final TaskTiming mTiming = new TaskTiming();
     private AwexPromise<Result, Progress> mPromise;
     private int mCurrentState = STATE_NOT_INITIALIZED;
     private Worker mWorker;
     private AwexTaskQueue mTaskQueue;
     private final int mQueueTimeout;
     private TimerTask mQueueTimeoutTimerTask;
+    private long mQueueDeadline;
     private final int mExecutionTimeout;
     private TimerTask mExecutionTimeoutTimerTask;
+    private Limiter mLimiter;
+    private boolean mLimiterPermit;
+    private TaskScope mScope;
+    private long mRank;
+    private Runnable mEndListener;
 
     public Task() {
         this(PRIORITY_NORMAL, -1, -1);
@@ -61,11 +77,19 @@ public abstract class Task<Result, Progress> {
         }
 
         mAwex = awex;
+        mLimiter = null;
         mId = awex.provideWorkId();
-        mLogger = awex.provideLogger();
+        mLogger = awex.provideEventLogger();
+        mMetrics = awex.provideMetrics();
 
         mCurrentState = STATE_NOT_QUEUE;
-        printStateChanged("NOT_QUEUE");
+        printStateChanged();
+        long submitTime = System.nanoTime();
+        mTiming.reset();
+        mTiming.markSubmit(submitTime);
+        if (mMetrics.isEnabled()) {
+            mMetrics.onTaskSubmitted(this, submitTime);
+        }
 
         mPromise = new AwexPromise<>(awex, this);
 
@@ -98,6 +122,78 @@ public abstract class Task<Result, Progress> {
         return mCurrentState;
     }
 
+    /**
+     * Override this method to set the group of the task, queues with fair share scheduling
+     * share the workers between groups (@see QueueOptions#setFairShare)
+     *
+     * @return name of the group, it must not change while the task is submitted
+     */
+    public String getGroup() {
+        return DEFAULT_GROUP;
+    }
+
+    /**
+     * Override this method to hint the policy about the kind of work done by this task, so it
+     * could be executed by workers dedicated to CPU bound or IO bound tasks
+     *
+     * @return one of WORKLOAD_UNKNOWN, WORKLOAD_CPU or WORKLOAD_IO
+     */
+    public int getWorkloadType() {
+        return WORKLOAD_UNKNOWN;
+    }
+
+    /**
+     * Override this method to execute this task serially with other tasks with the same key,
+     * tasks with the same affinity key are executed one at a time in submission order, while
+     * tasks with different keys could be executed in parallel.
+     *
+     * @return the affinity key or null if the task could be executed in parallel with any task,
+     * it must not change while the task is submitted
+     */
+    public Object getAffinityKey() {
+        return null;
+    }
+
+    /**
+     * Indicates if this task has a queue timeout, so it has a deadline to start its execution
+     * once queued
+     */
+    public boolean hasQueueDeadline() {
+        return mQueueTimeout > 0;
+    }
+
+    /**
+     * Gets the absolute deadline to start the execution of this task, in System.nanoTime() base
+     *
+     * @return the deadline or TaskTiming.UNKNOWN if the task has no queue timeout or is not
+     * queued yet
+     */
+    public long getQueueDeadline() {
+        return hasQueueDeadline() && mTiming.getQueueTime() != TaskTiming.UNKNOWN ? mQueueDeadline : TaskTiming.UNKNOWN;
+    }
+
+    /**
+     * Gets the time remaining until the deadline to start the execution of this task
+     *
+     * @return remaining time in nanoseconds, zero or negative if the deadline passed, or
+     * Long.MAX_VALUE if the task has no deadline
+     */
+    public long getSlack() {
+        if (!hasQueueDeadline() || mTiming.getQueueTime() == TaskTiming.UNKNOWN) {
+            return Long.MAX_VALUE;
+        }
+        return mQueueDeadline - System.nanoTime();
+    }
+
+    /**
+     * Gets the timestamps of the life cycle of the last submission of this task
+     *
+     * @return the timing of this task
+     */
+    public TaskTiming getTiming() {
+        return mTiming;
+    }
+
     public boolean isCancelled() {
         return mCurrentState == STATE_CANCELLING || mCurrentState == STATE_CANCELLED;
     }
@@ -106,16 +202,34 @@ public abstract class Task<Result, Progress> {
         try {
             lock.lock();
 
-            if (mCurrentState != STATE_FINISHED) {
+            if (!isCompleted()) {
                 throw new IllegalStateException("Trying to reuse an already submitted task");
             }
             mCurrentState = STATE_NOT_INITIALIZED;
+            mScope = null;
+            mRank = 0;
             onReset();
         } finally {
             lock.unlock();
         }
     }
 
+    /**
+     * Checks if the last submission of this task is over, it finished or it was cancelled and
+     * is not queued or executing anymore, so the task could be reset and reused
+     */
+    final boolean isCompleted() {
+        try {
+            lock.lock();
+
+            return mCurrentState == STATE_FINISHED ||
+                    mCurrentState == STATE_CANCELLED ||
+                    (mCurrentState == STATE_CANCELLING && mWorker == null);
+        } finally {
+            lock.unlock();
+        }
+    }
+
     /**
      * Override this method to reset any state of the task prior to reuse it
      */
@@ -142,28 +256,46 @@ public abstract class Task<Result, Progress> {
 
         mQueueTimeoutTimerTask.cancel();
         mCurrentState = STATE_RUNNING;
-        printStateChanged("RUNNING");
+        printStateChanged();
+        long startTime = System.nanoTime();
+        mTiming.markStart(startTime);
+        if (mMetrics.isEnabled()) {
+            mMetrics.onTaskStarted(this, startTime, mTiming.getQueueWaitTime());
+        }
         mAwex.schedule(mExecutionTimeoutTimerTask, mExecutionTimeout);
 
         Result result = null;
+        Task previousTask = sCurrentTask.get();
+        sCurrentTask.set(this);
         try {
             result = run();
+            markExecutionEnd();
         } catch (InterruptedException ex) {
             if (mPromise.isCancelled()) {
                 mCurrentState = STATE_CANCELLED;
-                printStateChanged("CANCELLED");
+                printStateChanged();
             }
             Thread.currentThread().interrupt();
             throw ex;
         } catch (Exception ex) {
+            markExecutionEnd();
             mPromise.reject(ex);
         } finally {
+            sCurrentTask.set(previousTask);
             mExecutionTimeoutTimerTask.cancel();
         }
 
         resolveWithResult(result);
     }
 
+    private void markExecutionEnd() {
+        long endTime = System.nanoTime();
+        mTiming.markEnd(endTime);
+        if (mMetrics.isEnabled()) {
+            mMetrics.onTaskFinished(this, endTime, mTiming.getExecutionTime());
+        }
+    }
+
     private void resolveWithResult(Result result) {
         try {
             lock.lock();
@@ -174,11 +306,11 @@ public abstract class Task<Result, Progress> {
 
             if (mCurrentState == STATE_CANCELLING) {
                 mCurrentState = STATE_CANCELLED;
-                printStateChanged("CANCELLED");
+                printStateChanged();
                 return;
             }
             mCurrentState = STATE_FINISHED;
-            printStateChanged("FINISHED");
+            printStateChanged();
         } finally {
             mWorker = null;
             lock.unlock();
@@ -191,7 +323,10 @@ public abstract class Task<Result, Progress> {
             checkInitialized();
 
             mCurrentState = STATE_CANCELLING;
-            printStateChanged("CANCELLING");
+            printStateChanged();
+            if (mMetrics.isEnabled()) {
+                mMetrics.onTaskCancelled(this, System.nanoTime());
+            }
         } finally {
             lock.unlock();
         }
@@ -202,18 +337,55 @@ public abstract class Task<Result, Progress> {
 
         mTaskQueue = taskQueue;
         mCurrentState = STATE_QUEUE;
-        printStateChanged("QUEUE");
-        mAwex.schedule(mQueueTimeoutTimerTask, mQueueTimeout);
+        printStateChanged();
+        long queueTime = System.nanoTime();
+        mQueueDeadline = queueTime + mQueueTimeout * 1000000L;
+        mTiming.markQueue(queueTime);
+        if (mMetrics.isEnabled()) {
+            mMetrics.onTaskQueued(this, taskQueue != null ? taskQueue.getId() : -1, queueTime);
+        }
+        if (taskQueue == null || !taskQueue.isDeadlineOrdered()) {
+            mAwex.schedule(mQueueTimeoutTimerTask, mQueueTimeout);
+        }
+    }
+
+    /**
+     * Discards a queued task without executing it, rejecting its promise
+     *
+     * @param exception reason of the rejection
+     */
+    void discard(Exception exception) {
+        try {
+            lock.lock();
+
+            mQueueTimeoutTimerTask.cancel();
+            mCurrentState = STATE_FINISHED;
+            printStateChanged();
+            if (mPromise.isPending()) {
+                mPromise.reject(exception);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void onQueueDeadlineExpired() {
+        mAwex.onTaskQueueTimeout(this);
     }
 
-    private void printStateChanged(String newState) {
+    private void printStateChanged() {
         if (mLogger.isEnabled()) {
-            StringBuilder stringBuilder = new StringBuilder();
-            mLogger.v(stringBuilder.append("Task ")
-                    .append(mId)
-                    .append(" state changed to ")
-                    .append(newState)
-                    .toString());
+            mLogger.log(LogEvent.TASK_STATE_CHANGED, mId, mCurrentState);
+        }
+    }
+
+    void markCallbackDelivered() {
+        if (mTiming.hasFirstCallback()) {
+            return;
+        }
+        long callbackTime = System.nanoTime();
+        if (mTiming.markFirstCallback(callbackTime) && mMetrics.isEnabled()) {
+            mMetrics.onTaskCallbackDelivered(this, callbackTime, mTiming.getCallbackDeliveryTime());
         }
     }
 
@@ -229,6 +401,62 @@ public abstract class Task<Result, Progress> {
         return mTaskQueue;
     }
 
+    /**
+     * Gets the task that is being executed in the current thread
+     *
+     * @return the task or null if the current thread is not executing any task
+     */
+    static Task getCurrentTask() {
+        return sCurrentTask.get();
+    }
+
+    /**
+     * Gets the rank of the task, tasks of the same priority with higher rank are executed first
+     */
+    final long getRank() {
+        return mRank;
+    }
+
+    final void setRank(long rank) {
+        mRank = rank;
+    }
+
+    final TaskScope getScope() {
+        return mScope;
+    }
+
+    final void setScope(TaskScope scope) {
+        mScope = scope;
+    }
+
+    /**
+     * Listener called by the pool once an execution of the task has ended, when the task is
+     * already completed and could be reset. It is kept between executions.
+     */
+    final Runnable getEndListener() {
+        return mEndListener;
+    }
+
+    final void setEndListener(Runnable endListener) {
+        mEndListener = endListener;
+    }
+
+    final Limiter getLimiter() {
+        return mLimiter;
+    }
+
+    final void setLimiter(Limiter limiter) {
+        mLimiter = limiter;
+    }
+
+    final boolean hasLimiterPermit() {
+        return mLimiterPermit;
+    }
+
+    final void setLimiterPermit(boolean limiterPermit) {
+        mLimiterPermit = limiterPermit;
+    }
+
     public void toString(StringBuilder stringBuilder) {
         String taskName = getClass().getName();
         stringBuilder.append("{/*")
@@ -0,0 +1,28 @@
+package com.raycoarana.awex;
+
+/**
+ * Orders tasks by its effective priority, that grows by one every aging interval the task
+ * spends in the queue. Comparing priority * interval - enqueueTime gives the same order as
+ * comparing effective priorities at any moment, so the order of queued tasks never changes
+ * and the queue doesn't need to be re-sorted as time passes.
+ */
+class TaskAgingComparator extends TaskPriorityComparator {
+
+    private final long mAgingInterval;
+
+    public TaskAgingComparator(long agingInterval) {
+        mAgingInterval = agingInterval;
+    }
+
+    @Override
+    protected int comparePriority(Task lhs, Task rhs) {
+        if (lhs.getPriority() == Task.PRIORITY_REAL_TIME || rhs.getPriority() == Task.PRIORITY_REAL_TIME) {
+            return super.comparePriority(lhs, rhs);
+        }
+
+        long priorityDiff = (long) lhs.getPriority() - rhs.getPriority();
+        long queueTimeDiff = lhs.getTiming().getQueueTime() - rhs.getTiming().getQueueTime();
+        long diff = priorityDiff * mAgingInterval - queueTimeDiff;
+        return diff > 0 ? -1 : (diff == 0 ? 0 : 1);
+    }
+}
@@ -0,0 +1,46 @@
+package com.raycoarana.awex;
+
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * Storage of the tasks waiting in an AwexTaskQueue, it decides which task is executed next.
+ * Implementations don't need to be thread safe, the queue guards every access with its lock.
+ */
+interface TaskContainer {
+
+    void add(Task task);
+
+    /**
+     * Gets and removes the next task to execute
+     *
+     * @return the next task or null if there is no task that could be executed right now
+     */
+    Task poll();
+
+    boolean remove(Task task);
+
+    /**
+     * Finds the task that goes last using the provided order
+     *
+     * @param comparator order of the tasks
+     * @return the last task or null if there is no task
+     */
+    Task findLast(Comparator<Task> comparator);
+
+    /**
+     * A task returned by poll() finished its execution
+     *
+     * @param task task that finished
+     * @return true if other tasks could be executed now because of this
+     */
+    boolean release(Task task);
+
+    /**
+     * Removes all tasks
+     *
+     * @return removed tasks
+     */
+    Collection<Task> drain();
+
+}
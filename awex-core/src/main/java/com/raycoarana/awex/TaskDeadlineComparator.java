@@ -0,0 +1,19 @@
+package com.raycoarana.awex;
+
+class TaskDeadlineComparator extends TaskPriorityComparator {
+    @Override
+    protected int comparePriority(Task lhs, Task rhs) {
+        int result = super.comparePriority(lhs, rhs);
+        if (result != 0) {
+            return result;
+        }
+
+        boolean lhsHasDeadline = lhs.hasQueueDeadline();
+        boolean rhsHasDeadline = rhs.hasQueueDeadline();
+        if (lhsHasDeadline && rhsHasDeadline) {
+            long diff = lhs.getQueueDeadline() - rhs.getQueueDeadline();
+            return diff < 0 ? -1 : (diff == 0 ? 0 : 1);
+        }
+        return lhsHasDeadline ? -1 : (rhsHasDeadline ? 1 : 0);
+    }
+}
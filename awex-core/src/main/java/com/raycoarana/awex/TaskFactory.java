@@ -0,0 +1,18 @@
+package com.raycoarana.awex;
+
+/**
+ * Creates a new task for each attempt of an operation that could be retried
+ *
+ * @see Awex#retry(TaskFactory, RetryPolicy)
+ */
+public interface TaskFactory<Result, Progress> {
+
+    /**
+     * Creates the task of an attempt, tasks can't be reused so a new one must be returned
+     *
+     * @param attempt number of the attempt, starting at 1
+     * @return a new task
+     */
+    Task<Result, Progress> create(int attempt);
+
+}
@@ -0,0 +1,338 @@
+package com.raycoarana.awex;
+
+import com.raycoarana.awex.callbacks.CancelCallback;
+import com.raycoarana.awex.callbacks.DoneCallback;
+import com.raycoarana.awex.callbacks.FailCallback;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executes a set of tasks with dependencies between them. Each task is submitted to the pool
+ * as soon as all its dependencies are resolved, directly from the thread that resolved the last
+ * one, and tasks could read the results of its dependencies with Node#getResult().
+ *
+ * Every node has a cost, the critical path of a node is its cost plus the longest critical
+ * path of its dependents. Tasks in the critical path are executed first: ready nodes are
+ * submitted from the longest critical path to the shortest and, inside the same priority,
+ * queues execute first the tasks with longer critical path.
+ *
+ * If a node fails, its downstream nodes are never submitted and the promise of the graph is
+ * rejected with the exception of the node.
+ */
+public class TaskGraph {
+
+    private static final long DEFAULT_COST = 1;
+
+    private static final Comparator<Node<?>> CRITICAL_PATH_FIRST = new Comparator<Node<?>>() {
+        @Override
+        public int compare(Node<?> lhs, Node<?> rhs) {
+            return lhs.mCriticalPath > rhs.mCriticalPath ? -1 : (lhs.mCriticalPath == rhs.mCriticalPath ? 0 : 1);
+        }
+    };
+
+    private final Awex mAwex;
+    private final List<Node<?>> mNodes = new ArrayList<>();
+    private final AtomicInteger mPendingNodes = new AtomicInteger();
+
+    private AwexPromise<Void, Void> mPromise;
+
+    public TaskGraph(Awex awex) {
+        mAwex = awex;
+    }
+
+    /**
+     * Adds a task to the graph
+     *
+     * @param task         task of the node
+     * @param dependencies nodes that must be resolved before executing the task
+     * @return the node of the task
+     */
+    public <Result> Node<Result> add(Task<Result, ?> task, Node<?>... dependencies) {
+        return add(task, DEFAULT_COST, dependencies);
+    }
+
+    /**
+     * Adds a task to the graph
+     *
+     * @param task         task of the node
+     * @param cost         estimated cost of the task, used to find the critical path
+     * @param dependencies nodes that must be resolved before executing the task
+     * @return the node of the task
+     */
+    public synchronized <Result> Node<Result> add(Task<Result, ?> task, long cost, Node<?>... dependencies) {
+        checkNotExecuted();
+
+        Node<Result> node = new Node<>(this, task, cost);
+        mNodes.add(node);
+        node.dependsOn(dependencies);
+        return node;
+    }
+
+    public synchronized List<Node<?>> getNodes() {
+        return Collections.unmodifiableList(new ArrayList<>(mNodes));
+    }
+
+    /**
+     * Starts the execution of the graph
+     *
+     * @return a promise that is resolved when every node is resolved, rejected when any node
+     * fails or cancelled when any node is cancelled. Cancelling it cancels the graph.
+     * @throws IllegalStateException if the graph has a cycle
+     */
+    public Promise<Void, Void> execute() {
+        List<Node<?>> roots = new ArrayList<>();
+        synchronized (this) {
+            checkNotExecuted();
+
+            List<Node<?>> sortedNodes = sortTopologically();
+            for (int i = sortedNodes.size() - 1; i >= 0; i--) {
+                Node<?> node = sortedNodes.get(i);
+                long longestDependentPath = 0;
+                for (Node<?> dependent : node.mDependents) {
+                    longestDependentPath = Math.max(longestDependentPath, dependent.mCriticalPath);
+                }
+                node.mCriticalPath = node.mCost + longestDependentPath;
+                node.mTask.setRank(node.mCriticalPath);
+                node.mPendingDependencies.set(node.mDependencies.size());
+                if (node.mDependencies.isEmpty()) {
+                    roots.add(node);
+                }
+            }
+            mPendingNodes.set(mNodes.size());
+            mPromise = new AwexPromise<>(mAwex);
+        }
+
+        mPromise.cancel(new CancelCallback() {
+            @Override
+            public void onCancel() {
+                cancelNodes();
+            }
+        });
+        if (roots.isEmpty()) {
+            mPromise.resolve(null);
+        }
+        submit(roots);
+        return mPromise;
+    }
+
+    private List<Node<?>> sortTopologically() {
+        List<Node<?>> sortedNodes = new ArrayList<>(mNodes.size());
+        ArrayDeque<Node<?>> readyNodes = new ArrayDeque<>();
+        for (Node<?> node : mNodes) {
+            node.mPendingDependencies.set(node.mDependencies.size());
+            if (node.mDependencies.isEmpty()) {
+                readyNodes.add(node);
+            }
+        }
+        while (!readyNodes.isEmpty()) {
+            Node<?> node = readyNodes.poll();
+            sortedNodes.add(node);
+            for (Node<?> dependent : node.mDependents) {
+                if (dependent.mPendingDependencies.decrementAndGet() == 0) {
+                    readyNodes.add(dependent);
+                }
+            }
+        }
+        if (sortedNodes.size() != mNodes.size()) {
+            throw new IllegalStateException("The graph has a cycle");
+        }
+        return sortedNodes;
+    }
+
+    private void submit(List<Node<?>> readyNodes) {
+        Collections.sort(readyNodes, CRITICAL_PATH_FIRST);
+        for (Node<?> node : readyNodes) {
+            if (node.markSubmitted()) {
+                submit(node);
+            }
+        }
+    }
+
+    private <Result> void submit(final Node<Result> node) {
+        mAwex.submit(node.mTask).done(new DoneCallback<Result>() {
+            @Override
+            public void onDone(Result result) {
+                onNodeDone(node);
+            }
+        }).fail(new FailCallback() {
+            @Override
+            public void onFail(Exception exception) {
+                onNodeFailed(node, exception);
+            }
+        }).cancel(new CancelCallback() {
+            @Override
+            public void onCancel() {
+                onNodeFailed(node, null);
+            }
+        });
+    }
+
+    private void onNodeDone(Node<?> node) {
+        List<Node<?>> readyNodes = new ArrayList<>();
+        for (Node<?> dependent : node.mDependents) {
+            if (dependent.mPendingDependencies.decrementAndGet() == 0) {
+                readyNodes.add(dependent);
+            }
+        }
+        submit(readyNodes);
+
+        if (mPendingNodes.decrementAndGet() == 0) {
+            synchronized (mPromise) {
+                if (mPromise.isPending()) {
+                    mPromise.resolve(null);
+                }
+            }
+        }
+    }
+
+    private void onNodeFailed(Node<?> node, Exception exception) {
+        cancelDownstream(node);
+        synchronized (mPromise) {
+            if (mPromise.isPending()) {
+                if (exception != null) {
+                    mPromise.reject(exception);
+                } else {
+                    mPromise.cancelTask();
+                }
+            }
+        }
+    }
+
+    private void cancelDownstream(Node<?> node) {
+        ArrayDeque<Node<?>> pendingNodes = new ArrayDeque<>(node.mDependents);
+        while (!pendingNodes.isEmpty()) {
+            Node<?> dependent = pendingNodes.poll();
+            if (dependent.markCancelled()) {
+                pendingNodes.addAll(dependent.mDependents);
+            }
+        }
+    }
+
+    private void cancelNodes() {
+        for (Node<?> node : getNodes()) {
+            if (!node.markCancelled() && node.isSubmitted()) {
+                node.mTask.getPromise().cancelTask(true);
+            }
+        }
+    }
+
+    private void checkNotExecuted() {
+        if (mPromise != null) {
+            throw new IllegalStateException("Graph already executed");
+        }
+    }
+
+    /**
+     * Node of the graph
+     */
+    public static class Node<Result> {
+
+        private static final int STATE_WAITING = 0;
+        private static final int STATE_SUBMITTED = 1;
+        private static final int STATE_CANCELLED = 2;
+
+        private final TaskGraph mGraph;
+        private final Task<Result, ?> mTask;
+        private final long mCost;
+        private final List<Node<?>> mDependencies = new ArrayList<>();
+        private final List<Node<?>> mDependents = new ArrayList<>();
+        private final AtomicInteger mPendingDependencies = new AtomicInteger();
+        private long mCriticalPath;
+        private int mState = STATE_WAITING;
+
+        private Node(TaskGraph graph, Task<Result, ?> task, long cost) {
+            if (cost <= 0) {
+                throw new IllegalArgumentException("Cost must be > 0");
+            }
+
+            mGraph = graph;
+            mTask = task;
+            mCost = cost;
+        }
+
+        /**
+         * Adds dependencies to this node, it must be done before executing the graph
+         *
+         * @param dependencies nodes of the same graph that must be resolved before this one
+         * @return this node
+         */
+        public Node<Result> dependsOn(Node<?>... dependencies) {
+            synchronized (mGraph) {
+                mGraph.checkNotExecuted();
+                for (Node<?> dependency : dependencies) {
+                    if (dependency.mGraph != mGraph) {
+                        throw new IllegalArgumentException("Dependency of other graph");
+                    }
+                    mDependencies.add(dependency);
+                    dependency.mDependents.add(this);
+                }
+            }
+            return this;
+        }
+
+        public Task<Result, ?> getTask() {
+            return mTask;
+        }
+
+        /**
+         * Gets the timing of the task of this node
+         */
+        public TaskTiming getTiming() {
+            return mTask.getTiming();
+        }
+
+        /**
+         * Gets the critical path of this node, computed when the graph is executed
+         */
+        public long getCriticalPath() {
+            return mCriticalPath;
+        }
+
+        public synchronized boolean isSubmitted() {
+            return mState == STATE_SUBMITTED;
+        }
+
+        public synchronized boolean isCancelled() {
+            return mState == STATE_CANCELLED;
+        }
+
+        /**
+         * Gets the result of this node, dependents of this node could call it from its tasks
+         *
+         * @return the result of the task
+         * @throws IllegalStateException if the task is not resolved
+         */
+        public Result getResult() {
+            if (!isSubmitted() || !mTask.getPromise().isResolved()) {
+                throw new IllegalStateException("Node not resolved");
+            }
+            try {
+                return mTask.getPromise().getResult();
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        private synchronized boolean markSubmitted() {
+            if (mState != STATE_WAITING) {
+                return false;
+            }
+            mState = STATE_SUBMITTED;
+            return true;
+        }
+
+        private synchronized boolean markCancelled() {
+            if (mState != STATE_WAITING) {
+                return false;
+            }
+            mState = STATE_CANCELLED;
+            return true;
+        }
+    }
+
+}
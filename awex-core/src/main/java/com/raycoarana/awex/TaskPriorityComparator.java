@@ -3,6 +3,23 @@ package com.raycoarana.awex;
 class TaskPriorityComparator implements java.util.Comparator<Task> {
     @Override
     public int compare(Task lhs, Task rhs) {
-        return lhs.getPriority() > rhs.getPriority() ? -1 : (lhs.getPriority() == rhs.getPriority() ? 0 : 1);
+        int result = comparePriority(lhs, rhs);
+        return result != 0 ? result : compareRank(lhs, rhs);
     }
-}
\ No newline at end of file
+
+    protected int comparePriority(Task lhs, Task rhs) {
+        if (lhs.getPriority() != rhs.getPriority()) {
+            return lhs.getPriority() > rhs.getPriority() ? -1 : 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Tasks with the same priority go by rank, the higher first. It is always the last criteria,
+     * so every comparator breaks ties the same way.
+     */
+    private static int compareRank(Task lhs, Task rhs) {
+        long rankDiff = lhs.getRank() - rhs.getRank();
+        return rankDiff > 0 ? -1 : (rankDiff == 0 ? 0 : 1);
+    }
+}
@@ -0,0 +1,243 @@
+package com.raycoarana.awex;
+
+import com.raycoarana.awex.callbacks.AlwaysCallback;
+import com.raycoarana.awex.callbacks.CancelCallback;
+import com.raycoarana.awex.callbacks.FailCallback;
+import com.raycoarana.awex.exceptions.ScopeException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ties the lifetime of a group of tasks to a block of code. Tasks submitted with the scope, and
+ * any task they submit while running, are tracked by it; closing the scope waits for all of
+ * them and throws a ScopeException with the exceptions of the rejected ones. Cancelling the
+ * scope cancels every tracked task, including the ones of nested scopes.
+ *
+ * A scope created inside a running task is cancelled when that task is cancelled, and it is
+ * nested in the scope of that task, if any.
+ *
+ * In MODE_FAIL_FAST the first rejected task cancels the rest of the scope, in MODE_WAIT_ALL
+ * every task is executed regardless of the others.
+ */
+public class TaskScope implements AutoCloseable {
+
+    public static final int MODE_FAIL_FAST = 0;
+    public static final int MODE_WAIT_ALL = 1;
+
+    private final Awex mAwex;
+    private final int mMode;
+    private final List<Promise<?, ?>> mPromises = new ArrayList<>();
+    private final List<Exception> mExceptions = new ArrayList<>();
+    private final List<TaskScope> mChildren = new ArrayList<>();
+
+    private boolean mCancelled;
+    private int mPending;
+
+    public TaskScope(Awex awex) {
+        this(awex, MODE_FAIL_FAST);
+    }
+
+    /**
+     * Creates a new scope
+     *
+     * @param awex pool where tasks are executed
+     * @param mode MODE_FAIL_FAST or MODE_WAIT_ALL
+     */
+    public TaskScope(Awex awex, int mode) {
+        if (mode != MODE_FAIL_FAST && mode != MODE_WAIT_ALL) {
+            throw new IllegalArgumentException("Unknown mode " + mode);
+        }
+
+        mAwex = awex;
+        mMode = mode;
+
+        Task parentTask = Task.getCurrentTask();
+        if (parentTask != null) {
+            TaskScope parentScope = parentTask.getScope();
+            if (parentScope != null) {
+                parentScope.addChild(this);
+            }
+            parentTask.getPromise().cancel(new CancelCallback() {
+                @Override
+                public void onCancel() {
+                    cancel();
+                }
+            });
+        }
+    }
+
+    /**
+     * Submits a task tracked by this scope, if the scope is cancelled the task is cancelled too
+     *
+     * @param task task to execute
+     * @return the promise of the task
+     */
+    public <Result, Progress> Promise<Result, Progress> submit(Task<Result, Progress> task) {
+        task.setScope(this);
+        return mAwex.submit(task);
+    }
+
+    /**
+     * Tracks a promise created outside this scope, e.g. the result of an operator
+     *
+     * @param promise promise to track
+     * @return the same promise
+     */
+    public <Result, Progress> Promise<Result, Progress> track(final Promise<Result, Progress> promise) {
+        boolean cancelled;
+        synchronized (this) {
+            cancelled = mCancelled;
+            if (!cancelled) {
+                mPromises.add(promise);
+                mPending++;
+                notifyAll();
+            }
+        }
+        if (cancelled) {
+            promise.cancelTask(true);
+            return promise;
+        }
+
+        promise.fail(new FailCallback() {
+            @Override
+            public void onFail(Exception exception) {
+                onRejected(exception);
+            }
+        }).always(new AlwaysCallback() {
+            @Override
+            public void onAlways() {
+                onCompleted(promise);
+            }
+        }).cancel(new CancelCallback() {
+            @Override
+            public void onCancel() {
+                onCompleted(promise);
+            }
+        });
+        return promise;
+    }
+
+    private synchronized void onCompleted(Promise<?, ?> promise) {
+        mPromises.remove(promise);
+        mPending--;
+        if (mPending == 0) {
+            notifyAll();
+        }
+    }
+
+    private void onRejected(Exception exception) {
+        synchronized (this) {
+            mExceptions.add(exception);
+        }
+        if (mMode == MODE_FAIL_FAST) {
+            cancel();
+        }
+    }
+
+    private void addChild(TaskScope child) {
+        boolean cancelled;
+        synchronized (this) {
+            cancelled = mCancelled;
+            mChildren.add(child);
+        }
+        if (cancelled) {
+            child.cancel();
+        }
+    }
+
+    /**
+     * Cancels every task tracked by this scope and its nested scopes, tasks submitted later
+     * are cancelled immediately
+     */
+    public void cancel() {
+        List<Promise<?, ?>> promises;
+        List<TaskScope> children;
+        synchronized (this) {
+            if (mCancelled) {
+                return;
+            }
+            mCancelled = true;
+            promises = new ArrayList<>(mPromises);
+            children = new ArrayList<>(mChildren);
+        }
+        for (Promise<?, ?> promise : promises) {
+            promise.cancelTask(true);
+        }
+        for (TaskScope child : children) {
+            child.cancel();
+        }
+    }
+
+    public synchronized boolean isCancelled() {
+        return mCancelled;
+    }
+
+    /**
+     * Waits until every task tracked by this scope is completed, including the ones submitted
+     * while waiting. If the thread is interrupted while waiting the scope is cancelled.
+     *
+     * @throws ScopeException if any of the tasks was rejected
+     */
+    public void join() throws InterruptedException, ScopeException {
+        try {
+            waitForPending();
+        } catch (InterruptedException ex) {
+            cancel();
+            throw ex;
+        }
+
+        synchronized (this) {
+            if (!mExceptions.isEmpty()) {
+                throw new ScopeException(mExceptions.toArray(new Exception[mExceptions.size()]));
+            }
+        }
+    }
+
+    /**
+     * Waits until the callbacks of every tracked promise are executed, so the exceptions of the
+     * rejected ones are collected. While any of them is pending its result is waited instead,
+     * so a join from a task executes the queued ones inline.
+     */
+    private void waitForPending() throws InterruptedException {
+        while (true) {
+            Promise<?, ?> promise;
+            synchronized (this) {
+                if (mPending == 0) {
+                    return;
+                }
+                promise = findPendingPromise();
+                if (promise == null) {
+                    wait();
+                    continue;
+                }
+            }
+            promise.getResultOrDefault(null);
+        }
+    }
+
+    private Promise<?, ?> findPendingPromise() {
+        for (Promise<?, ?> promise : mPromises) {
+            if (promise.isPending()) {
+                return promise;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Joins the scope. If the thread is interrupted while waiting the scope is cancelled and the
+     * interrupted flag of the thread is restored.
+     *
+     * @see #join()
+     */
+    @Override
+    public void close() throws ScopeException {
+        try {
+            join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,153 @@
+package com.raycoarana.awex;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic timestamps (System.nanoTime()) of the life cycle of a task. A timestamp is
+ * UNKNOWN until the task reaches that point of its life cycle, durations between two points
+ * not yet reached are UNKNOWN too.
+ */
+public class TaskTiming {
+
+    public static final long UNKNOWN = -1;
+
+    private volatile long mSubmitTime;
+    private volatile long mQueueTime;
+    private volatile long mStartTime;
+    private volatile long mEndTime;
+    private final AtomicLong mFirstCallbackTime = new AtomicLong();
+
+    TaskTiming() {
+    }
+
+    void reset() {
+        mSubmitTime = 0;
+        mQueueTime = 0;
+        mStartTime = 0;
+        mEndTime = 0;
+        mFirstCallbackTime.set(0);
+    }
+
+    void markSubmit(long timestamp) {
+        mSubmitTime = timestamp;
+    }
+
+    void markQueue(long timestamp) {
+        mQueueTime = timestamp;
+    }
+
+    void markStart(long timestamp) {
+        mStartTime = timestamp;
+    }
+
+    void markEnd(long timestamp) {
+        mEndTime = timestamp;
+    }
+
+    boolean hasFirstCallback() {
+        return mFirstCallbackTime.get() != 0;
+    }
+
+    /**
+     * Marks the first callback delivery, any other delivery is ignored, even if it is delivered
+     * concurrently from other thread
+     *
+     * @param timestamp moment when the callback is delivered
+     * @return true if this is the first callback delivered
+     */
+    boolean markFirstCallback(long timestamp) {
+        return mFirstCallbackTime.compareAndSet(0, timestamp);
+    }
+
+    /**
+     * Moment when the task was submitted to the pool
+     */
+    public long getSubmitTime() {
+        return valueOf(mSubmitTime);
+    }
+
+    /**
+     * Moment when the task entered a queue
+     */
+    public long getQueueTime() {
+        return valueOf(mQueueTime);
+    }
+
+    /**
+     * Moment when a worker started to execute the task
+     */
+    public long getStartTime() {
+        return valueOf(mStartTime);
+    }
+
+    /**
+     * Moment when the execution of the task ended
+     */
+    public long getEndTime() {
+        return valueOf(mEndTime);
+    }
+
+    /**
+     * Moment when the first done, fail or always callback was delivered. Every callback of the
+     * promise counts, including the ones the pool adds itself to track the task, like scopes,
+     * graphs, retries, circuit breakers or limiters, so this is when the outcome of the task was
+     * first delivered and not when a callback of the user was.
+     */
+    public long getFirstCallbackTime() {
+        return valueOf(mFirstCallbackTime.get());
+    }
+
+    /**
+     * Time the task was waiting in the queue before a worker takes it
+     */
+    public long getQueueWaitTime() {
+        return elapsed(mQueueTime, mStartTime);
+    }
+
+    /**
+     * Time spent in the execution of the task
+     */
+    public long getExecutionTime() {
+        return elapsed(mStartTime, mEndTime);
+    }
+
+    /**
+     * Time between the end of the execution and the delivery of the first callback
+     */
+    public long getCallbackDeliveryTime() {
+        return elapsed(mEndTime, mFirstCallbackTime.get());
+    }
+
+    /**
+     * Time between the submission and the delivery of the first callback
+     */
+    public long getTotalTime() {
+        return elapsed(mSubmitTime, mFirstCallbackTime.get());
+    }
+
+    private static long valueOf(long timestamp) {
+        return timestamp != 0 ? timestamp : UNKNOWN;
+    }
+
+    private static long elapsed(long from, long to) {
+        return from != 0 && to != 0 ? to - from : UNKNOWN;
+    }
+
+    public void toString(StringBuilder stringBuilder) {
+        stringBuilder.append("{/*Timing*/ queueWait: ")
+                .append(getQueueWaitTime())
+                .append(", execution: ")
+                .append(getExecutionTime())
+                .append(", callbackDelivery: ")
+                .append(getCallbackDeliveryTime())
+                .append(" }");
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder stringBuilder = new StringBuilder();
+        toString(stringBuilder);
+        return stringBuilder.toString();
+    }
+
+}
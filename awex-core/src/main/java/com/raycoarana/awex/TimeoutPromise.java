@@ -0,0 +1,64 @@
+package com.raycoarana.awex;
+
+import com.raycoarana.awex.callbacks.AlwaysCallback;
+import com.raycoarana.awex.callbacks.CancelCallback;
+import com.raycoarana.awex.exceptions.PromiseTimeoutException;
+
+class TimeoutPromise<Result, Progress> extends AwexPromise<Result, Progress> {
+
+    private final boolean mHasFallback;
+    private final Result mFallbackValue;
+
+    private final TimeoutWheel.Timeout mTimeout = new TimeoutWheel.Timeout() {
+        @Override
+        protected void onExpired() {
+            expire();
+        }
+    };
+
+    public TimeoutPromise(Awex awex, Promise<Result, Progress> promise, long timeout) {
+        this(awex, promise, timeout, false, null);
+    }
+
+    public TimeoutPromise(Awex awex, Promise<Result, Progress> promise, long timeout, Result fallbackValue) {
+        this(awex, promise, timeout, true, fallbackValue);
+    }
+
+    private TimeoutPromise(Awex awex, Promise<Result, Progress> promise, long timeout, boolean hasFallback,
+                           Result fallbackValue) {
+        super(awex);
+
+        mHasFallback = hasFallback;
+        mFallbackValue = fallbackValue;
+        dependOn(promise);
+        awex.scheduleTimeout(mTimeout, timeout);
+
+        always(new AlwaysCallback() {
+            @Override
+            public void onAlways() {
+                mTimeout.cancel();
+            }
+        }).cancel(new CancelCallback() {
+            @Override
+            public void onCancel() {
+                mTimeout.cancel();
+            }
+        });
+        promise.pipe(this);
+    }
+
+    private void expire() {
+        synchronized (this) {
+            if (!isPending()) {
+                return;
+            }
+            if (mHasFallback) {
+                resolve(mFallbackValue);
+            } else {
+                reject(new PromiseTimeoutException());
+            }
+        }
+        releaseUpstream(true);
+    }
+
+}
@@ -0,0 +1,156 @@
+package com.raycoarana.awex;
+
+import java.util.TimerTask;
+
+/**
+ * Hashed timing wheel shared by all the timed promises of a pool. Timeouts are linked in the
+ * slot of the tick where they expire, so adding and cancelling a timeout is O(1) and cancelled
+ * timeouts don't stay in any queue. The wheel is driven by a single task of the timer of the
+ * pool that only runs while there are pending timeouts.
+ *
+ * Timeouts have a resolution of one tick, they never expire before its delay but could expire
+ * up to two ticks later.
+ */
+class TimeoutWheel {
+
+    static final long TICK_DURATION = 10;
+    private static final int WHEEL_SIZE = 512;
+
+    private final Awex mAwex;
+    private final Timeout[] mSlots = new Timeout[WHEEL_SIZE];
+
+    private long mTick;
+    private int mPending;
+    private TimerTask mTickTask;
+
+    TimeoutWheel(Awex awex) {
+        mAwex = awex;
+    }
+
+    synchronized void add(Timeout timeout, long delay) {
+        if (timeout.mWheel != null) {
+            throw new IllegalStateException("Trying to reuse an already scheduled timeout");
+        }
+
+        long ticks = (Math.max(0, delay) + TICK_DURATION - 1) / TICK_DURATION + 1;
+        timeout.mWheel = this;
+        timeout.mRounds = (ticks - 1) / WHEEL_SIZE;
+        link(timeout, (int) ((mTick + ticks) % WHEEL_SIZE));
+
+        mPending++;
+        if (mTickTask == null) {
+            mTickTask = new TimerTask() {
+                @Override
+                public void run() {
+                    tick(this);
+                }
+            };
+            mAwex.scheduleTimer(mTickTask, TICK_DURATION, TICK_DURATION);
+        }
+    }
+
+    private synchronized boolean remove(Timeout timeout) {
+        if (timeout.mSlot < 0) {
+            return false;
+        }
+        unlink(timeout);
+        mPending--;
+        stopTickingIfIdle();
+        return true;
+    }
+
+    private void stopTickingIfIdle() {
+        if (mPending == 0 && mTickTask != null) {
+            mTickTask.cancel();
+            mTickTask = null;
+        }
+    }
+
+    synchronized int getPending() {
+        return mPending;
+    }
+
+    private void tick(TimerTask tickTask) {
+        Timeout expired = null;
+        synchronized (this) {
+            if (tickTask != mTickTask) {
+                return;
+            }
+            mTick++;
+            Timeout timeout = mSlots[(int) (mTick % WHEEL_SIZE)];
+            while (timeout != null) {
+                Timeout next = timeout.mNext;
+                if (timeout.mRounds > 0) {
+                    timeout.mRounds--;
+                } else {
+                    unlink(timeout);
+                    mPending--;
+                    timeout.mNext = expired;
+                    expired = timeout;
+                }
+                timeout = next;
+            }
+
+            stopTickingIfIdle();
+        }
+
+        while (expired != null) {
+            Timeout next = expired.mNext;
+            expired.mNext = null;
+            try {
+                expired.onExpired();
+            } catch (Exception ex) {
+                mAwex.provideLogger().e("Error when expiring timeout", ex);
+            }
+            expired = next;
+        }
+    }
+
+    private void link(Timeout timeout, int slot) {
+        Timeout head = mSlots[slot];
+        timeout.mSlot = slot;
+        timeout.mPrev = null;
+        timeout.mNext = head;
+        if (head != null) {
+            head.mPrev = timeout;
+        }
+        mSlots[slot] = timeout;
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.mPrev != null) {
+            timeout.mPrev.mNext = timeout.mNext;
+        } else {
+            mSlots[timeout.mSlot] = timeout.mNext;
+        }
+        if (timeout.mNext != null) {
+            timeout.mNext.mPrev = timeout.mPrev;
+        }
+        timeout.mSlot = -1;
+        timeout.mPrev = null;
+        timeout.mNext = null;
+    }
+
+    /**
+     * Action executed when the timeout expires, it runs in the timer thread so it must be short
+     */
+    abstract static class Timeout {
+
+        private volatile TimeoutWheel mWheel;
+        private Timeout mPrev;
+        private Timeout mNext;
+        private int mSlot = -1;
+        private long mRounds;
+
+        protected abstract void onExpired();
+
+        /**
+         * Cancels the timeout
+         *
+         * @return true if the timeout was pending, false if it already expired or was cancelled
+         */
+        boolean cancel() {
+            return mWheel != null && mWheel.remove(this);
+        }
+    }
+}
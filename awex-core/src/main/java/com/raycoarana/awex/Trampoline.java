@@ -0,0 +1,50 @@
+package com.raycoarana.awex;
+
+import java.util.ArrayDeque;
+
+/**
+ * Executes continuations inline in the current thread while the nesting depth is below a bound,
+ * deeper ones are queued and executed by the outermost frame once the stack unwinds.
+ */
+final class Trampoline {
+
+    static final int MAX_DEPTH = 32;
+
+    private static final ThreadLocal<Trampoline> sTrampoline = new ThreadLocal<Trampoline>() {
+        @Override
+        protected Trampoline initialValue() {
+            return new Trampoline();
+        }
+    };
+
+    private final ArrayDeque<Runnable> mPending = new ArrayDeque<>();
+    private int mDepth;
+
+    private Trampoline() {
+    }
+
+    static void execute(Runnable runnable) {
+        Trampoline trampoline = sTrampoline.get();
+        if (trampoline.mDepth >= MAX_DEPTH) {
+            trampoline.mPending.addLast(runnable);
+            return;
+        }
+
+        trampoline.run(runnable);
+        if (trampoline.mDepth == 0) {
+            while ((runnable = trampoline.mPending.pollFirst()) != null) {
+                trampoline.run(runnable);
+            }
+        }
+    }
+
+    private void run(Runnable runnable) {
+        mDepth++;
+        try {
+            runnable.run();
+        } finally {
+            mDepth--;
+        }
+    }
+
+}
@@ -15,6 +15,10 @@ public abstract class VoidTask extends Task<Void, Void> {
         super(priority);
     }
 
+    public VoidTask(int priority, int queueTimeout, int executionTimeout) {
+        super(priority, queueTimeout, executionTimeout);
+    }
+
     @Override
     protected Void run() throws InterruptedException {
         runWithoutResult();
@@ -9,7 +9,8 @@ class Worker implements Runnable {
     private final Thread mThread;
     private final ThreadHelper mThreadHelper;
     private final AwexTaskQueue mWorkQueue;
-    private final Logger mLogger;
+    private final EventLogger mLogger;
+    private final Metrics mMetrics;
     private final WorkerListener mListener;
     private final int mPriority;
 
@@ -18,13 +19,15 @@ class Worker implements Runnable {
     private Task mCurrentTask;
     private long mLastTimeActive;
 
-    public Worker(int id, int priority, AwexTaskQueue workQueue, ThreadHelper threadHelper, Logger logger, WorkerListener listener) {
+    public Worker(int id, int priority, AwexTaskQueue workQueue, ThreadHelper threadHelper, EventLogger logger,
+                  Metrics metrics, WorkerListener listener) {
         mId = id;
         mPriority = priority;
         mThreadHelper = threadHelper;
         mThread = new Thread(this, "Awex worker " + id);
         mWorkQueue = workQueue;
         mLogger = logger;
+        mMetrics = metrics;
         mListener = listener;
 
         mThread.start();
@@ -37,14 +40,21 @@ class Worker implements Runnable {
     @Override
     public void run() {
         mThreadHelper.setUpPriorityToCurrentThread(mPriority);
+        mListener.onWorkerStarted(mWorkQueue.getId(), mId);
 
         if (mLogger.isEnabled()) {
-            mLogger.v("Worker " + mId + " starting...");
+            mLogger.log(LogEvent.WORKER_STARTING, mId, 0);
         }
         try {
             while (!mDie) {
+                long waitStartTime = mMetrics.isEnabled() ? System.nanoTime() : 0;
                 try {
                     Task newTask = mWorkQueue.take(this);
+                    long executionStartTime = 0;
+                    if (mMetrics.isEnabled()) {
+                        executionStartTime = System.nanoTime();
+                        mMetrics.onWorkerIdle(mId, executionStartTime - waitStartTime);
+                    }
                     synchronized (this) {
                         mCurrentTask = newTask;
                         mExecutingTask = true;
@@ -53,11 +63,14 @@ class Worker implements Runnable {
                     if (mCurrentTask != null) {
                         long taskId = mCurrentTask.getId();
                         if (mLogger.isEnabled()) {
-                            mLogger.v("Worker " + mId + " start executing task " + taskId);
+                            mLogger.log(LogEvent.WORKER_START_TASK, mId, taskId);
                         }
                         mCurrentTask.execute();
                         if (mLogger.isEnabled()) {
-                            mLogger.v("Worker " + mId + " ends executing task " + taskId);
+                            mLogger.log(LogEvent.WORKER_END_TASK, mId, taskId);
+                        }
+                        if (mMetrics.isEnabled()) {
+                            mMetrics.onWorkerBusy(mId, System.nanoTime() - executionStartTime);
                         }
                     }
                 } catch (InterruptedException ex) {
@@ -69,13 +82,14 @@ class Worker implements Runnable {
                         mExecutingTask = false;
                     }
                     if (executedTask != null) {
+                        mWorkQueue.release(executedTask);
                         mListener.onTaskFinished(executedTask);
                     }
                 }
             }
         } finally {
             if (mLogger.isEnabled()) {
-                mLogger.v("Worker " + mId + " dies");
+                mLogger.log(LogEvent.WORKER_DIES, mId, 0);
             }
         }
     }
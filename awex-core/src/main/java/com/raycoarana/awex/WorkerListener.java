@@ -2,6 +2,8 @@ package com.raycoarana.awex;
 
 public interface WorkerListener {
 
+    void onWorkerStarted(int queueId, int workerId);
+
     void onTaskFinished(Task task);
 
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.raycoarana.awex.exceptions;
+
+public class CircuitOpenException extends Exception {
+
+    public CircuitOpenException() {
+        super("Promise rejected because the circuit breaker is open");
+    }
+
+}
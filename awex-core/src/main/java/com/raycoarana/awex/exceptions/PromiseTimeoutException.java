@@ -0,0 +1,9 @@
+package com.raycoarana.awex.exceptions;
+
+public class PromiseTimeoutException extends Exception {
+
+    public PromiseTimeoutException() {
+        super("Promise rejected because the timeout expired");
+    }
+
+}
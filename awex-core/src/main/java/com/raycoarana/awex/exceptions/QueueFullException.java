@@ -0,0 +1,9 @@
+package com.raycoarana.awex.exceptions;
+
+public class QueueFullException extends Exception {
+
+    public QueueFullException() {
+        super("Promise rejected because the queue of the task is full");
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.raycoarana.awex.exceptions;
+
+public class ScopeException extends Exception {
+
+    private final Exception[] mExceptions;
+
+    public ScopeException(Exception... exceptions) {
+        super("Tasks of the scope rejected");
+        mExceptions = exceptions;
+    }
+
+    public Exception getException(int index) {
+        return mExceptions[index];
+    }
+
+    public int getCount() {
+        return mExceptions.length;
+    }
+
+}
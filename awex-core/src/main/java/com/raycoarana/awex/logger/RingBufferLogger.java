@@ -0,0 +1,199 @@
+package com.raycoarana.awex.logger;
+
+import com.raycoarana.awex.EventLogger;
+import com.raycoarana.awex.LogEvent;
+import com.raycoarana.awex.Logger;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Logger that records events in a preallocated ring buffer and formats them asynchronously in
+ * a background thread that sends them to other Logger. Logging an event never blocks and never
+ * allocates, if the background thread can't keep the pace the oldest events are overwritten
+ * and counted as dropped. The background thread is parked while there are no events, call
+ * close() to stop it once the logger is not needed anymore.
+ *
+ * Errors are sent synchronously to the wrapped logger.
+ */
+public class RingBufferLogger implements Logger, EventLogger {
+
+    private static final int DEFAULT_CAPACITY = 4096;
+    private static final long DRAIN_INTERVAL_NANOS = 1000000;
+    private static final long WRITING = -1;
+
+    private final Logger mLogger;
+    private final int mCapacity;
+    private final int mMask;
+    private final AtomicLong mNextSequence = new AtomicLong();
+    private final AtomicLongArray mSequences;
+    private final AtomicLongArray mEvents;
+    private final AtomicReferenceArray<String> mMessages;
+    private final StringBuilder mStringBuilder = new StringBuilder();
+    private final Thread mThread;
+
+    private volatile boolean mIdle;
+
+    private long mReadSequence;
+    private long mDroppedEvents;
+
+    public RingBufferLogger(Logger logger) {
+        this(logger, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new ring buffer logger
+     *
+     * @param logger   logger where events are sent once formatted
+     * @param capacity number of events that could be waiting to be formatted, it will be
+     *                 rounded up to the next power of two
+     */
+    public RingBufferLogger(Logger logger, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be > 0");
+        }
+
+        mLogger = logger;
+        mCapacity = roundUpToPowerOfTwo(capacity);
+        mMask = mCapacity - 1;
+        mSequences = new AtomicLongArray(mCapacity);
+        mEvents = new AtomicLongArray(mCapacity * 3);
+        mMessages = new AtomicReferenceArray<>(mCapacity);
+        for (int i = 0; i < mCapacity; i++) {
+            mSequences.set(i, WRITING);
+        }
+
+        mThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (!Thread.currentThread().isInterrupted()) {
+                    flush();
+                    if (isEmpty()) {
+                        waitForEvents();
+                    } else {
+                        LockSupport.parkNanos(DRAIN_INTERVAL_NANOS);
+                    }
+                }
+            }
+        }, "Awex logger");
+        mThread.setDaemon(true);
+        mThread.start();
+    }
+
+    private void waitForEvents() {
+        mIdle = true;
+        if (isEmpty()) {
+            LockSupport.park(this);
+        }
+        mIdle = false;
+    }
+
+    private synchronized boolean isEmpty() {
+        return mReadSequence >= mNextSequence.get();
+    }
+
+    private static int roundUpToPowerOfTwo(int value) {
+        int highestOneBit = Integer.highestOneBit(value);
+        return highestOneBit == value ? value : highestOneBit << 1;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return mLogger.isEnabled();
+    }
+
+    @Override
+    public void log(int event, long id, long value) {
+        publish(event, id, value, null);
+    }
+
+    @Override
+    public void v(String message) {
+        publish(LogEvent.MESSAGE, 0, 0, message);
+    }
+
+    @Override
+    public void e(String message, Exception ex) {
+        mLogger.e(message, ex);
+    }
+
+    private void publish(int event, long id, long value, String message) {
+        long sequence = mNextSequence.getAndIncrement();
+        int slot = (int) (sequence & mMask);
+        mSequences.set(slot, WRITING);
+        mEvents.lazySet(slot * 3, event);
+        mEvents.lazySet(slot * 3 + 1, id);
+        mEvents.lazySet(slot * 3 + 2, value);
+        mMessages.lazySet(slot, message);
+        mSequences.lazySet(slot, sequence);
+        if (mIdle) {
+            LockSupport.unpark(mThread);
+        }
+    }
+
+    /**
+     * Number of events overwritten before they could be formatted
+     */
+    public synchronized long getDroppedEvents() {
+        return mDroppedEvents;
+    }
+
+    /**
+     * Stops the background thread and formats the events still in the buffer
+     */
+    public void close() {
+        mThread.interrupt();
+        try {
+            mThread.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    /**
+     * Formats and sends to the wrapped logger all events published so far
+     */
+    public synchronized void flush() {
+        while (true) {
+            long overrunSequence = mNextSequence.get() - mCapacity;
+            if (mReadSequence < overrunSequence) {
+                mDroppedEvents += overrunSequence - mReadSequence;
+                mReadSequence = overrunSequence;
+            }
+
+            int slot = (int) (mReadSequence & mMask);
+            long sequence = mSequences.get(slot);
+            if (sequence != mReadSequence) {
+                if (sequence > mReadSequence) {
+                    mDroppedEvents++;
+                    mReadSequence++;
+                    continue;
+                }
+                return;
+            }
+
+            int event = (int) mEvents.get(slot * 3);
+            long id = mEvents.get(slot * 3 + 1);
+            long value = mEvents.get(slot * 3 + 2);
+            String message = mMessages.get(slot);
+            if (mSequences.get(slot) != sequence) {
+                mDroppedEvents++;
+                mReadSequence++;
+                continue;
+            }
+            mReadSequence++;
+
+            if (event == LogEvent.MESSAGE) {
+                mLogger.v(message);
+            } else {
+                mStringBuilder.setLength(0);
+                LogEvent.format(mStringBuilder, event, id, value);
+                mLogger.v(mStringBuilder.toString());
+            }
+        }
+    }
+
+}
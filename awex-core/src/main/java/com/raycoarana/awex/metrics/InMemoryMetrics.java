@@ -0,0 +1,242 @@
+package com.raycoarana.awex.metrics;
+
+import com.raycoarana.awex.Metrics;
+import com.raycoarana.awex.Task;
+import com.raycoarana.awex.TaskTiming;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Metrics implementation that keeps everything in memory using lock-free counters and
+ * latency histograms. Values could be read at any time from any thread.
+ */
+public class InMemoryMetrics implements Metrics {
+
+    private final AtomicLong mSubmittedTasks = new AtomicLong();
+    private final AtomicLong mQueuedTasks = new AtomicLong();
+    private final AtomicLong mStartedTasks = new AtomicLong();
+    private final AtomicLong mFinishedTasks = new AtomicLong();
+    private final AtomicLong mCancelledTasks = new AtomicLong();
+    private final AtomicLong mQueueTimeouts = new AtomicLong();
+    private final AtomicLong mExecutionTimeouts = new AtomicLong();
+    private final AtomicLong mWorkersBusyTime = new AtomicLong();
+    private final AtomicLong mWorkersIdleTime = new AtomicLong();
+    private final ConcurrentHashMap<Integer, AtomicInteger> mQueueDepths = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, AtomicInteger> mMaxQueueDepths = new ConcurrentHashMap<>();
+
+    private final LatencyHistogram mQueueWaitTime = new LatencyHistogram();
+    private final LatencyHistogram mExecutionTime = new LatencyHistogram();
+    private final LatencyHistogram mCallbackDispatchLatency = new LatencyHistogram();
+    private final LatencyHistogram mCallbackDeliveryTime = new LatencyHistogram();
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void onTaskSubmitted(Task task, long timestamp) {
+        mSubmittedTasks.incrementAndGet();
+    }
+
+    @Override
+    public void onTaskQueued(Task task, int queueId, long timestamp) {
+        mQueuedTasks.incrementAndGet();
+    }
+
+    @Override
+    public void onTaskStarted(Task task, long timestamp, long queueWaitTime) {
+        mStartedTasks.incrementAndGet();
+        mQueueWaitTime.record(queueWaitTime);
+    }
+
+    @Override
+    public void onTaskFinished(Task task, long timestamp, long executionTime) {
+        mFinishedTasks.incrementAndGet();
+        mExecutionTime.record(executionTime);
+    }
+
+    @Override
+    public void onTaskCallbackDelivered(Task task, long timestamp, long callbackDeliveryTime) {
+        if (callbackDeliveryTime != TaskTiming.UNKNOWN) {
+            mCallbackDeliveryTime.record(callbackDeliveryTime);
+        }
+    }
+
+    @Override
+    public void onTaskCancelled(Task task, long timestamp) {
+        mCancelledTasks.incrementAndGet();
+    }
+
+    @Override
+    public void onTaskQueueTimeout(Task task, long timestamp) {
+        mQueueTimeouts.incrementAndGet();
+    }
+
+    @Override
+    public void onTaskExecutionTimeout(Task task, long timestamp) {
+        mExecutionTimeouts.incrementAndGet();
+    }
+
+    @Override
+    public void onQueueDepthChanged(int queueId, int depth) {
+        getOrCreate(mQueueDepths, queueId).set(depth);
+
+        AtomicInteger maxDepth = getOrCreate(mMaxQueueDepths, queueId);
+        int max = maxDepth.get();
+        while (depth > max && !maxDepth.compareAndSet(max, depth)) {
+            max = maxDepth.get();
+        }
+    }
+
+    private AtomicInteger getOrCreate(ConcurrentHashMap<Integer, AtomicInteger> counters, int queueId) {
+        AtomicInteger counter = counters.get(queueId);
+        if (counter == null) {
+            AtomicInteger newCounter = new AtomicInteger();
+            counter = counters.putIfAbsent(queueId, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
+        return counter;
+    }
+
+    @Override
+    public void onWorkerBusy(int workerId, long busyTime) {
+        mWorkersBusyTime.addAndGet(busyTime);
+    }
+
+    @Override
+    public void onWorkerIdle(int workerId, long idleTime) {
+        mWorkersIdleTime.addAndGet(idleTime);
+    }
+
+    @Override
+    public void onCallbackDispatched(long latency) {
+        mCallbackDispatchLatency.record(latency);
+    }
+
+    public long getSubmittedTasks() {
+        return mSubmittedTasks.get();
+    }
+
+    public long getQueuedTasks() {
+        return mQueuedTasks.get();
+    }
+
+    public long getStartedTasks() {
+        return mStartedTasks.get();
+    }
+
+    public long getFinishedTasks() {
+        return mFinishedTasks.get();
+    }
+
+    public long getCancelledTasks() {
+        return mCancelledTasks.get();
+    }
+
+    public long getQueueTimeouts() {
+        return mQueueTimeouts.get();
+    }
+
+    public long getExecutionTimeouts() {
+        return mExecutionTimeouts.get();
+    }
+
+    /**
+     * Total time spent by all workers executing tasks
+     */
+    public long getWorkersBusyTime() {
+        return mWorkersBusyTime.get();
+    }
+
+    /**
+     * Total time spent by all workers waiting for tasks
+     */
+    public long getWorkersIdleTime() {
+        return mWorkersIdleTime.get();
+    }
+
+    /**
+     * Last known number of tasks waiting in the queue
+     *
+     * @param queueId id of the queue
+     * @return number of tasks or 0 if the queue is unknown
+     */
+    public int getQueueDepth(int queueId) {
+        AtomicInteger depth = mQueueDepths.get(queueId);
+        return depth != null ? depth.get() : 0;
+    }
+
+    /**
+     * Maximum number of tasks that have been waiting at the same time in the queue
+     *
+     * @param queueId id of the queue
+     * @return number of tasks or 0 if the queue is unknown
+     */
+    public int getMaxQueueDepth(int queueId) {
+        AtomicInteger depth = mMaxQueueDepths.get(queueId);
+        return depth != null ? depth.get() : 0;
+    }
+
+    public LatencyHistogram getQueueWaitTime() {
+        return mQueueWaitTime;
+    }
+
+    public LatencyHistogram getExecutionTime() {
+        return mExecutionTime;
+    }
+
+    public LatencyHistogram getCallbackDispatchLatency() {
+        return mCallbackDispatchLatency;
+    }
+
+    /**
+     * Time between the end of the execution of tasks and the delivery of the first callback
+     * of their promises
+     */
+    public LatencyHistogram getCallbackDeliveryTime() {
+        return mCallbackDeliveryTime;
+    }
+
+    public void toString(StringBuilder stringBuilder) {
+        stringBuilder.append("{/*Metrics*/ submitted: ")
+                .append(getSubmittedTasks())
+                .append(", queued: ")
+                .append(getQueuedTasks())
+                .append(", started: ")
+                .append(getStartedTasks())
+                .append(", finished: ")
+                .append(getFinishedTasks())
+                .append(", cancelled: ")
+                .append(getCancelledTasks())
+                .append(", queueTimeouts: ")
+                .append(getQueueTimeouts())
+                .append(", executionTimeouts: ")
+                .append(getExecutionTimeouts())
+                .append(", workersBusyTime: ")
+                .append(getWorkersBusyTime())
+                .append(", workersIdleTime: ")
+                .append(getWorkersIdleTime())
+                .append(", queueWaitTime: ");
+        mQueueWaitTime.toString(stringBuilder);
+        stringBuilder.append(", executionTime: ");
+        mExecutionTime.toString(stringBuilder);
+        stringBuilder.append(", callbackDispatchLatency: ");
+        mCallbackDispatchLatency.toString(stringBuilder);
+        stringBuilder.append(", callbackDeliveryTime: ");
+        mCallbackDeliveryTime.toString(stringBuilder);
+        stringBuilder.append(" }");
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder stringBuilder = new StringBuilder();
+        toString(stringBuilder);
+        return stringBuilder.toString();
+    }
+
+}
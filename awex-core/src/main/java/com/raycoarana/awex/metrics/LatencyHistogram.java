@@ -0,0 +1,135 @@
+package com.raycoarana.awex.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of latencies with log-linear buckets, in the style of HdrHistogram. Each
+ * power of two range is split in 32 linear sub-buckets, so any recorded value is reported with
+ * a relative error lower than 1/32 (~3%) while the whole range of positive long values fits in
+ * less than 2000 counters.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_MASK = SUB_BUCKET_COUNT - 1;
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (63 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray mCounts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong mTotalCount = new AtomicLong();
+    private final AtomicLong mTotalSum = new AtomicLong();
+    private final AtomicLong mMax = new AtomicLong();
+
+    /**
+     * Records a value, negative values are recorded as zero
+     *
+     * @param value value to record
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        mCounts.incrementAndGet(indexOf(value));
+        mTotalCount.incrementAndGet();
+        mTotalSum.addAndGet(value);
+
+        long max = mMax.get();
+        while (value > max && !mMax.compareAndSet(max, value)) {
+            max = mMax.get();
+        }
+    }
+
+    public long getCount() {
+        return mTotalCount.get();
+    }
+
+    public long getMax() {
+        return mMax.get();
+    }
+
+    public double getMean() {
+        long count = mTotalCount.get();
+        return count == 0 ? 0 : (double) mTotalSum.get() / count;
+    }
+
+    /**
+     * Gets the value under which the given percentage of recorded values fall
+     *
+     * @param percentile percentile to get, from 0 to 100
+     * @return an approximation of the value at the percentile or 0 if nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long totalCount = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            totalCount += mCounts.get(i);
+        }
+        if (totalCount == 0) {
+            return 0;
+        }
+
+        double boundedPercentile = Math.min(Math.max(percentile, 0), 100);
+        long countAtPercentile = Math.max(1, (long) Math.ceil(boundedPercentile / 100 * totalCount));
+        long accumulatedCount = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            accumulatedCount += mCounts.get(i);
+            if (accumulatedCount >= countAtPercentile) {
+                return Math.min(highestValueOf(i), mMax.get());
+            }
+        }
+        return mMax.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            mCounts.set(i, 0);
+        }
+        mTotalCount.set(0);
+        mTotalSum.set(0);
+        mMax.set(0);
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int shift = magnitude - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & SUB_BUCKET_MASK;
+        return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long highestValueOf(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+        long subBucket = SUB_BUCKET_COUNT + (index & SUB_BUCKET_MASK);
+        long lowestValue = subBucket << shift;
+        return lowestValue + (1L << shift) - 1;
+    }
+
+    public void toString(StringBuilder stringBuilder) {
+        stringBuilder.append("{ count: ")
+                .append(getCount())
+                .append(", mean: ")
+                .append((long) getMean())
+                .append(", p50: ")
+                .append(getValueAtPercentile(50))
+                .append(", p95: ")
+                .append(getValueAtPercentile(95))
+                .append(", p99: ")
+                .append(getValueAtPercentile(99))
+                .append(", max: ")
+                .append(getMax())
+                .append(" }");
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder stringBuilder = new StringBuilder();
+        toString(stringBuilder);
+        return stringBuilder.toString();
+    }
+
+}
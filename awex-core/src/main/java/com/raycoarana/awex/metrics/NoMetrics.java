@@ -0,0 +1,64 @@
+package com.raycoarana.awex.metrics;
+
+import com.raycoarana.awex.Metrics;
+import com.raycoarana.awex.Task;
+
+/**
+ * Metrics implementation that disables any measurement
+ */
+public class NoMetrics implements Metrics {
+
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+
+    @Override
+    public void onTaskSubmitted(Task task, long timestamp) {
+    }
+
+    @Override
+    public void onTaskQueued(Task task, int queueId, long timestamp) {
+    }
+
+    @Override
+    public void onTaskStarted(Task task, long timestamp, long queueWaitTime) {
+    }
+
+    @Override
+    public void onTaskFinished(Task task, long timestamp, long executionTime) {
+    }
+
+    @Override
+    public void onTaskCallbackDelivered(Task task, long timestamp, long callbackDeliveryTime) {
+    }
+
+    @Override
+    public void onTaskCancelled(Task task, long timestamp) {
+    }
+
+    @Override
+    public void onTaskQueueTimeout(Task task, long timestamp) {
+    }
+
+    @Override
+    public void onTaskExecutionTimeout(Task task, long timestamp) {
+    }
+
+    @Override
+    public void onQueueDepthChanged(int queueId, int depth) {
+    }
+
+    @Override
+    public void onWorkerBusy(int workerId, long busyTime) {
+    }
+
+    @Override
+    public void onWorkerIdle(int workerId, long idleTime) {
+    }
+
+    @Override
+    public void onCallbackDispatched(long latency) {
+    }
+
+}
@@ -0,0 +1,212 @@
+package com.raycoarana.awex.policy;
+
+import com.raycoarana.awex.PoolPolicy;
+import com.raycoarana.awex.QueueOptions;
+import com.raycoarana.awex.Task;
+import com.raycoarana.awex.TaskTiming;
+import com.raycoarana.awex.state.PoolState;
+import com.raycoarana.awex.state.QueueState;
+import com.raycoarana.awex.state.WorkerState;
+
+import java.util.ArrayDeque;
+
+/**
+ * Policy with a single queue that adapts the number of workers to the load using hill
+ * climbing. Completed tasks are sampled in windows, at the end of each window the throughput
+ * is compared with the one of the previous window: if it improved the number of workers keeps
+ * moving in the same direction, if it got worse the direction is reversed and if it didn't
+ * change (extra threads don't help, e.g. contention) it backs off removing a worker, unless
+ * there is a backlog and tasks are waiting longer in the queue than in the previous window, as
+ * the pool is falling behind it grows instead. When the queue is empty and there are idle
+ * workers the pool shrinks too. Once at the minimum, it
+ * probes again with one more worker while there are tasks waiting in the queue.
+ *
+ * Real time tasks are executed immediately like in LinearWithRealTimePriorityPolicy.
+ */
+public class AdaptiveConcurrencyPolicy extends PoolPolicy {
+
+    private static final int QUEUE_ID = 1;
+    private static final int DEFAULT_SAMPLING_INTERVAL = 100;
+    private static final int MIN_SAMPLES = 8;
+    private static final double TOLERANCE = 0.05;
+
+    private final int mDefaultPriority;
+    private final int mMinThreads;
+    private final int mMaxThreads;
+    private final long mSamplingInterval;
+    private final QueueOptions mQueueOptions;
+    private final ArrayDeque<Integer> mWorkerIds = new ArrayDeque<>();
+
+    private int mTargetWorkers;
+    private int mDirection = 1;
+    private double mLastThroughput;
+    private double mThroughput;
+    private long mLastAverageQueueWaitTime;
+    private long mAverageQueueWaitTime;
+    private long mWindowStartTime;
+    private int mWindowCompletedTasks;
+    private long mWindowQueueWaitTime;
+    private int mWindowQueueWaitSamples;
+
+    public AdaptiveConcurrencyPolicy(int defaultPriority) {
+        this(defaultPriority, 1, Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    public AdaptiveConcurrencyPolicy(int defaultPriority, int minThreads, int maxThreads) {
+        this(defaultPriority, minThreads, maxThreads, DEFAULT_SAMPLING_INTERVAL, new QueueOptions());
+    }
+
+    /**
+     * Creates a new adaptive policy
+     *
+     * @param defaultPriority  priority of the worker threads
+     * @param minThreads       minimum number of workers, it must be at least 1
+     * @param maxThreads       maximum number of workers
+     * @param samplingInterval minimum duration in milliseconds of each sampling window
+     * @param queueOptions     options of the queue
+     */
+    public AdaptiveConcurrencyPolicy(int defaultPriority, int minThreads, int maxThreads, int samplingInterval,
+                                     QueueOptions queueOptions) {
+        if (minThreads < 1 || maxThreads < minThreads) {
+            throw new IllegalArgumentException("Invalid number of threads, it must be 1 <= minThreads <= maxThreads");
+        }
+
+        mDefaultPriority = defaultPriority;
+        mMinThreads = minThreads;
+        mMaxThreads = maxThreads;
+        mSamplingInterval = samplingInterval * 1000000L;
+        mQueueOptions = queueOptions;
+    }
+
+    @Override
+    public synchronized void onStartUp() {
+        createQueue(QUEUE_ID, mQueueOptions);
+        mTargetWorkers = mMinThreads;
+        updateWorkers();
+        mWindowStartTime = now();
+    }
+
+    @Override
+    public synchronized void onTaskAdded(PoolState poolState, Task task) {
+        QueueState queueState = poolState.getQueue(QUEUE_ID);
+        reconcileWorkers(queueState);
+
+        boolean isRealTimeTask = task.getPriority() == Task.PRIORITY_REAL_TIME;
+        if (isRealTimeTask && (queueState.getEnqueue() != 0 || queueState.getWaiters() == 0)) {
+            executeImmediately(task);
+        } else {
+            queueTask(QUEUE_ID, task);
+        }
+    }
+
+    @Override
+    public synchronized void onTaskFinished(PoolState poolState, Task task) {
+        QueueState queueState = poolState.getQueue(QUEUE_ID);
+        reconcileWorkers(queueState);
+
+        mWindowCompletedTasks++;
+        long queueWaitTime = task.getTiming().getQueueWaitTime();
+        if (queueWaitTime != TaskTiming.UNKNOWN) {
+            mWindowQueueWaitTime += queueWaitTime;
+            mWindowQueueWaitSamples++;
+        }
+
+        long now = now();
+        long windowDuration = now - mWindowStartTime;
+        if (windowDuration < mSamplingInterval || mWindowCompletedTasks < MIN_SAMPLES) {
+            return;
+        }
+
+        mThroughput = mWindowCompletedTasks * 1000000000.0 / windowDuration;
+        mAverageQueueWaitTime = mWindowQueueWaitSamples > 0 ? mWindowQueueWaitTime / mWindowQueueWaitSamples : 0;
+
+        boolean hasBacklog = queueState.getEnqueue() > 0;
+        if (!hasBacklog && queueState.getWaiters() > 0) {
+            mDirection = -1;
+        } else if (mThroughput < mLastThroughput * (1 - TOLERANCE)) {
+            mDirection = -mDirection;
+        } else if (mThroughput <= mLastThroughput * (1 + TOLERANCE)) {
+            mDirection = hasBacklog && isQueueWaitTimeRising() ? 1 : -1;
+        }
+
+        int targetWorkers = mTargetWorkers + mDirection;
+        if (targetWorkers < mMinThreads) {
+            mDirection = 1;
+            targetWorkers = hasBacklog ? mMinThreads + 1 : mMinThreads;
+        }
+        mTargetWorkers = Math.min(mMaxThreads, targetWorkers);
+        updateWorkers();
+
+        mLastThroughput = mThroughput;
+        mLastAverageQueueWaitTime = mAverageQueueWaitTime;
+        mWindowStartTime = now;
+        mWindowCompletedTasks = 0;
+        mWindowQueueWaitTime = 0;
+        mWindowQueueWaitSamples = 0;
+    }
+
+    private boolean isQueueWaitTimeRising() {
+        return mAverageQueueWaitTime > mLastAverageQueueWaitTime * (1 + TOLERANCE);
+    }
+
+    /**
+     * Workers could be removed by the pool, like when a task is cancelled interrupting it, so
+     * the ids of the workers that are no longer in the queue are forgotten and the missing
+     * workers are created again
+     */
+    private void reconcileWorkers(QueueState queueState) {
+        if (queueState.numberOfWorkers() >= mWorkerIds.size()) {
+            return;
+        }
+
+        mWorkerIds.clear();
+        for (WorkerState workerState : queueState.getWorkers()) {
+            mWorkerIds.addLast(workerState.getId());
+        }
+        updateWorkers();
+    }
+
+    private void updateWorkers() {
+        while (mWorkerIds.size() < mTargetWorkers) {
+            mWorkerIds.addLast(createWorker(QUEUE_ID, mDefaultPriority));
+        }
+        while (mWorkerIds.size() > mTargetWorkers) {
+            removeWorker(QUEUE_ID, mWorkerIds.pollLast());
+        }
+    }
+
+    long now() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Number of workers the policy is converging to
+     */
+    public synchronized int getTargetWorkers() {
+        return mTargetWorkers;
+    }
+
+    /**
+     * Tasks completed per second in the last sampling window
+     */
+    public synchronized double getThroughput() {
+        return mThroughput;
+    }
+
+    /**
+     * Average time in nanoseconds that tasks waited in the queue in the last sampling window
+     */
+    public synchronized long getAverageQueueWaitTime() {
+        return mAverageQueueWaitTime;
+    }
+
+    @Override
+    public void onTaskQueueTimeout(PoolState poolState, Task task) {
+        task.getPromise().cancelTask();
+    }
+
+    @Override
+    public void onTaskExecutionTimeout(PoolState poolState, Task task) {
+        task.getPromise().cancelTask();
+    }
+}
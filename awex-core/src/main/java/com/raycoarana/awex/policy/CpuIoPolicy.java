@@ -0,0 +1,148 @@
+package com.raycoarana.awex.policy;
+
+import com.raycoarana.awex.PoolPolicy;
+import com.raycoarana.awex.Task;
+import com.raycoarana.awex.state.PoolState;
+import com.raycoarana.awex.state.QueueState;
+import com.raycoarana.awex.state.WorkerState;
+import com.raycoarana.awex.util.Map;
+
+/**
+ * Policy with two queues, one for CPU bound tasks with as many workers as cores and other
+ * elastic one for IO bound tasks, so blocking tasks don't take the workers that keep the cores
+ * busy.
+ *
+ * Tasks are routed using the hint of Task#getWorkloadType(). Tasks without hint are executed
+ * in the CPU queue until its class is learned as IO bound, that happens when workers of the CPU
+ * queue are found waiting (WAITING or TIMED_WAITING state) while executing tasks of that class.
+ * Worker states are sampled every time a task is added or finishes.
+ *
+ * Real time tasks are executed immediately like in LinearWithRealTimePriorityPolicy.
+ */
+public class CpuIoPolicy extends PoolPolicy {
+
+    public static final int CPU_QUEUE_ID = 1;
+    public static final int IO_QUEUE_ID = 2;
+
+    private static final int DEFAULT_MAX_IO_THREADS = 64;
+    private static final int WAITING_SAMPLES_TO_LEARN = 2;
+
+    private final int mDefaultPriority;
+    private final int mCpuThreads;
+    private final int mMaxIoThreads;
+    private final Map<Class, Integer> mWaitingSamples = Map.Provider.get();
+
+    public CpuIoPolicy(int defaultPriority) {
+        this(defaultPriority, Runtime.getRuntime().availableProcessors(), DEFAULT_MAX_IO_THREADS);
+    }
+
+    /**
+     * Creates a new CPU/IO policy
+     *
+     * @param defaultPriority priority of the worker threads
+     * @param cpuThreads      maximum number of workers executing CPU bound tasks
+     * @param maxIoThreads    maximum number of workers executing IO bound tasks
+     */
+    public CpuIoPolicy(int defaultPriority, int cpuThreads, int maxIoThreads) {
+        mDefaultPriority = defaultPriority;
+        mCpuThreads = cpuThreads;
+        mMaxIoThreads = maxIoThreads;
+    }
+
+    @Override
+    public synchronized void onStartUp() {
+        createQueue(CPU_QUEUE_ID);
+        createQueue(IO_QUEUE_ID);
+        createWorker(CPU_QUEUE_ID, mDefaultPriority);
+        createWorker(IO_QUEUE_ID, mDefaultPriority);
+    }
+
+    @Override
+    public synchronized void onTaskAdded(PoolState poolState, Task task) {
+        QueueState cpuQueueState = poolState.getQueue(CPU_QUEUE_ID);
+        sampleWorkers(cpuQueueState);
+
+        boolean isRealTimeTask = task.getPriority() == Task.PRIORITY_REAL_TIME;
+        if (isRealTimeTask && (cpuQueueState.getEnqueue() != 0 || cpuQueueState.getWaiters() == 0)) {
+            executeImmediately(task);
+        } else if (isIoTask(task)) {
+            QueueState ioQueueState = poolState.getQueue(IO_QUEUE_ID);
+            if (ioQueueState.getWaiters() == 0 && ioQueueState.numberOfWorkers() < mMaxIoThreads) {
+                createWorker(IO_QUEUE_ID, mDefaultPriority);
+            }
+            queueTask(IO_QUEUE_ID, task);
+        } else {
+            if (cpuQueueState.getWaiters() == 0 && cpuQueueState.numberOfWorkers() < mCpuThreads) {
+                createWorker(CPU_QUEUE_ID, mDefaultPriority);
+            }
+            queueTask(CPU_QUEUE_ID, task);
+        }
+    }
+
+    @Override
+    public synchronized void onTaskFinished(PoolState poolState, Task task) {
+        sampleWorkers(poolState.getQueue(CPU_QUEUE_ID));
+
+        QueueState ioQueueState = poolState.getQueue(IO_QUEUE_ID);
+        if (ioQueueState.getEnqueue() == 0 && ioQueueState.getWaiters() > 0 && ioQueueState.numberOfWorkers() > 1) {
+            Integer idleWorkerId = findIdleWorker(ioQueueState);
+            if (idleWorkerId != null) {
+                removeWorker(IO_QUEUE_ID, idleWorkerId);
+            }
+        }
+    }
+
+    private Integer findIdleWorker(QueueState queueState) {
+        Integer idleWorkerId = null;
+        for (WorkerState workerState : queueState.getWorkers()) {
+            if (workerState.getCurrentTask() == null) {
+                idleWorkerId = workerState.getId();
+            }
+        }
+        return idleWorkerId;
+    }
+
+    private void sampleWorkers(QueueState cpuQueueState) {
+        for (WorkerState workerState : cpuQueueState.getWorkers()) {
+            WorkerState.State state = workerState.getState();
+            Task task = workerState.getCurrentTask();
+            if (task != null && task.getWorkloadType() == Task.WORKLOAD_UNKNOWN &&
+                    (state == WorkerState.State.WAITING || state == WorkerState.State.TIMED_WAITING)) {
+                Integer samples = mWaitingSamples.get(task.getClass());
+                mWaitingSamples.put(task.getClass(), samples != null ? samples + 1 : 1);
+            }
+        }
+    }
+
+    private boolean isIoTask(Task task) {
+        switch (task.getWorkloadType()) {
+            case Task.WORKLOAD_IO:
+                return true;
+            case Task.WORKLOAD_CPU:
+                return false;
+            default:
+                return isLearnedAsIo(task.getClass());
+        }
+    }
+
+    /**
+     * Checks if tasks of the class have been learned as IO bound
+     *
+     * @param taskClass class of the task
+     * @return true if tasks of that class are executed in the IO queue
+     */
+    public synchronized boolean isLearnedAsIo(Class<? extends Task> taskClass) {
+        Integer samples = mWaitingSamples.get(taskClass);
+        return samples != null && samples >= WAITING_SAMPLES_TO_LEARN;
+    }
+
+    @Override
+    public void onTaskQueueTimeout(PoolState poolState, Task task) {
+        task.getPromise().cancelTask();
+    }
+
+    @Override
+    public void onTaskExecutionTimeout(PoolState poolState, Task task) {
+        task.getPromise().cancelTask();
+    }
+}
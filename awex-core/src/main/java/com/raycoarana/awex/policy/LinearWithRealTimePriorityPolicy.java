@@ -1,6 +1,7 @@
 package com.raycoarana.awex.policy;
 
 import com.raycoarana.awex.PoolPolicy;
+import com.raycoarana.awex.QueueOptions;
 import com.raycoarana.awex.Task;
 import com.raycoarana.awex.state.PoolState;
 import com.raycoarana.awex.state.QueueState;
@@ -11,19 +12,25 @@ public class LinearWithRealTimePriorityPolicy extends PoolPolicy {
 
     private final int mDefaultPriority;
     private final int mMaxThreads;
+    private final QueueOptions mQueueOptions;
 
     public LinearWithRealTimePriorityPolicy(int defaultPriority) {
         this(defaultPriority, Runtime.getRuntime().availableProcessors());
     }
 
     public LinearWithRealTimePriorityPolicy(int defaultPriority, int maxThreads) {
+        this(defaultPriority, maxThreads, new QueueOptions());
+    }
+
+    public LinearWithRealTimePriorityPolicy(int defaultPriority, int maxThreads, QueueOptions queueOptions) {
         mDefaultPriority = defaultPriority;
         mMaxThreads = maxThreads;
+        mQueueOptions = queueOptions;
     }
 
     @Override
     public void onStartUp() {
-        createQueue(QUEUE_ID);
+        createQueue(QUEUE_ID, mQueueOptions);
         createWorker(QUEUE_ID, mDefaultPriority);
     }
 
@@ -0,0 +1,204 @@
+package com.raycoarana.awex.policy;
+
+import com.raycoarana.awex.PoolPolicy;
+import com.raycoarana.awex.QueueOptions;
+import com.raycoarana.awex.Task;
+import com.raycoarana.awex.state.PoolState;
+import com.raycoarana.awex.state.QueueState;
+import com.raycoarana.awex.state.WorkerState;
+import com.raycoarana.awex.util.CpuTopology;
+import com.raycoarana.awex.util.ThreadAffinity;
+
+import java.util.Arrays;
+
+/**
+ * Policy with a queue per NUMA node, each one with up to as many workers as CPUs in the node.
+ * Every worker is pinned to one CPU of its node (@see ThreadAffinity), so the data of its
+ * tasks stays in the caches and the memory of that node.
+ *
+ * Tasks submitted from a worker are queued in the node of that worker while it has idle
+ * workers or no other node has them, so nested work like parallel mappers stays in the same
+ * node. Any other task is queued in a node with idle workers or, if all of them are busy, in
+ * the one with less tasks waiting per worker.
+ *
+ * Real time tasks are executed immediately like in LinearWithRealTimePriorityPolicy.
+ */
+public class NumaPolicy extends PoolPolicy {
+
+    private static final int NO_CPU = -1;
+    private static final int NO_WORKER = -1;
+
+    private final int mDefaultPriority;
+    private final CpuTopology mTopology;
+    private final boolean mPinWorkers;
+    private final QueueOptions mQueueOptions;
+    private final int[][] mCpuWorkers;
+    private final ThreadLocal<Integer> mCurrentNode = new ThreadLocal<>();
+
+    public NumaPolicy(int defaultPriority) {
+        this(defaultPriority, CpuTopology.read(), true, new QueueOptions());
+    }
+
+    /**
+     * Creates a new NUMA policy
+     *
+     * @param defaultPriority priority of the worker threads
+     * @param topology        CPUs of each node
+     * @param pinWorkers      true to pin each worker to a CPU of its node
+     * @param queueOptions    options of the queue of each node
+     */
+    public NumaPolicy(int defaultPriority, CpuTopology topology, boolean pinWorkers, QueueOptions queueOptions) {
+        mDefaultPriority = defaultPriority;
+        mTopology = topology;
+        mPinWorkers = pinWorkers;
+        mQueueOptions = queueOptions;
+        mCpuWorkers = new int[topology.getNodeCount()][];
+        for (int node = 0; node < mCpuWorkers.length; node++) {
+            mCpuWorkers[node] = new int[topology.getCpus(node).length];
+            Arrays.fill(mCpuWorkers[node], NO_WORKER);
+        }
+    }
+
+    /**
+     * Gets the id of the queue of a node
+     *
+     * @param node index of the node in the topology
+     * @return id of the queue
+     */
+    public static int getQueueId(int node) {
+        return node + 1;
+    }
+
+    @Override
+    public synchronized void onStartUp() {
+        for (int node = 0; node < mTopology.getNodeCount(); node++) {
+            createQueue(getQueueId(node), mQueueOptions);
+            createWorker(node);
+        }
+    }
+
+    @Override
+    public synchronized void onTaskAdded(PoolState poolState, Task task) {
+        int node = selectNode(poolState);
+        QueueState queueState = poolState.getQueue(getQueueId(node));
+
+        boolean isRealTimeTask = task.getPriority() == Task.PRIORITY_REAL_TIME;
+        if (isRealTimeTask && (queueState.getEnqueue() != 0 || queueState.getWaiters() == 0)) {
+            executeImmediately(task);
+        } else {
+            if (queueState.getWaiters() == 0 && canCreateWorker(queueState, node)) {
+                releaseCpusOfRemovedWorkers(queueState, node);
+                createWorker(node);
+            }
+            queueTask(getQueueId(node), task);
+        }
+    }
+
+    private int selectNode(PoolState poolState) {
+        Integer currentNode = mCurrentNode.get();
+        if (currentNode != null && hasIdleWorkers(poolState, currentNode)) {
+            return currentNode;
+        }
+
+        int leastLoadedNode = 0;
+        double leastLoad = Double.MAX_VALUE;
+        for (int node = 0; node < mCpuWorkers.length; node++) {
+            if (hasIdleWorkers(poolState, node)) {
+                return node;
+            }
+            QueueState queueState = poolState.getQueue(getQueueId(node));
+            double load = (double) queueState.getEnqueue() / Math.max(1, queueState.numberOfWorkers());
+            if (load < leastLoad) {
+                leastLoad = load;
+                leastLoadedNode = node;
+            }
+        }
+        return currentNode != null ? currentNode : leastLoadedNode;
+    }
+
+    private boolean hasIdleWorkers(PoolState poolState, int node) {
+        QueueState queueState = poolState.getQueue(getQueueId(node));
+        return queueState.getWaiters() > 0 || canCreateWorker(queueState, node);
+    }
+
+    private boolean canCreateWorker(QueueState queueState, int node) {
+        return queueState.numberOfWorkers() < mCpuWorkers[node].length;
+    }
+
+    /**
+     * Frees the CPUs assigned to workers that are not in the queue anymore, like the ones
+     * removed by the pool when a task is cancelled interrupting its worker
+     */
+    private void releaseCpusOfRemovedWorkers(QueueState queueState, int node) {
+        int[] cpuWorkers = mCpuWorkers[node];
+        for (int i = 0; i < cpuWorkers.length; i++) {
+            if (cpuWorkers[i] != NO_WORKER && !containsWorker(queueState, cpuWorkers[i])) {
+                cpuWorkers[i] = NO_WORKER;
+            }
+        }
+    }
+
+    private boolean containsWorker(QueueState queueState, int workerId) {
+        for (WorkerState workerState : queueState.getWorkers()) {
+            if (workerState.getId() == workerId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void createWorker(int node) {
+        int[] cpuWorkers = mCpuWorkers[node];
+        int cpuIndex = 0;
+        while (cpuIndex < cpuWorkers.length - 1 && cpuWorkers[cpuIndex] != NO_WORKER) {
+            cpuIndex++;
+        }
+        cpuWorkers[cpuIndex] = createWorker(getQueueId(node), mDefaultPriority);
+    }
+
+    @Override
+    public void onWorkerStarted(int queueId, int workerId) {
+        mCurrentNode.set(queueId - 1);
+
+        int cpu;
+        synchronized (this) {
+            cpu = getCpu(workerId);
+        }
+        if (mPinWorkers && cpu != NO_CPU) {
+            ThreadAffinity.setCurrentThreadAffinity(cpu);
+        }
+    }
+
+    /**
+     * Gets the CPU assigned to a worker
+     *
+     * @param workerId id of the worker
+     * @return id of the CPU or -1 if the worker is unknown
+     */
+    public synchronized int getCpu(int workerId) {
+        for (int node = 0; node < mCpuWorkers.length; node++) {
+            int[] cpuWorkers = mCpuWorkers[node];
+            for (int i = 0; i < cpuWorkers.length; i++) {
+                if (cpuWorkers[i] == workerId) {
+                    return mTopology.getCpus(node)[i];
+                }
+            }
+        }
+        return NO_CPU;
+    }
+
+    @Override
+    public void onTaskFinished(PoolState poolState, Task task) {
+
+    }
+
+    @Override
+    public void onTaskQueueTimeout(PoolState poolState, Task task) {
+        task.getPromise().cancelTask();
+    }
+
+    @Override
+    public void onTaskExecutionTimeout(PoolState poolState, Task task) {
+        task.getPromise().cancelTask();
+    }
+}
@@ -8,4 +8,6 @@ public interface QueueState {
     int getWaiters();
 
     int numberOfWorkers();
+
+    Iterable<? extends WorkerState> getWorkers();
 }
@@ -58,6 +58,14 @@ public class QueueStateImpl implements QueueState {
         return mWorkers.size();
     }
 
+    /**
+     * State of the workers of the queue
+     */
+    @Override
+    public Iterable<? extends WorkerState> getWorkers() {
+        return mWorkers.values();
+    }
+
     public void addWorker(int id, WorkerStateImpl workerState) {
         mWorkers.put(id, workerState);
     }
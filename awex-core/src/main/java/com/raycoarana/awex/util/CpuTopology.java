@@ -0,0 +1,128 @@
+package com.raycoarana.awex.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * CPUs of each NUMA node of the system. In Linux it is read from sysfs, in any other system
+ * or if it could not be read there is a single node with all the available processors.
+ */
+public class CpuTopology {
+
+    private static final String NODES_PATH = "/sys/devices/system/node";
+
+    private final int[][] mNodes;
+
+    /**
+     * Creates a topology
+     *
+     * @param nodes ids of the CPUs of each node
+     */
+    public CpuTopology(int[]... nodes) {
+        if (nodes.length == 0) {
+            throw new IllegalArgumentException("There must be at least one node");
+        }
+        for (int[] cpus : nodes) {
+            if (cpus.length == 0) {
+                throw new IllegalArgumentException("Every node must have at least one CPU");
+            }
+        }
+        mNodes = nodes;
+    }
+
+    /**
+     * Reads the topology of the system
+     */
+    public static CpuTopology read() {
+        List<int[]> nodes = new ArrayList<>();
+        for (int node = 0; ; node++) {
+            File cpuList = new File(NODES_PATH + "/node" + node + "/cpulist");
+            if (!cpuList.exists()) {
+                break;
+            }
+            try {
+                int[] cpus = parseCpuList(readLine(cpuList));
+                if (cpus.length > 0) {
+                    nodes.add(cpus);
+                }
+            } catch (IOException | IllegalArgumentException ex) {
+                nodes.clear();
+                break;
+            }
+        }
+
+        if (nodes.isEmpty()) {
+            int[] cpus = new int[Runtime.getRuntime().availableProcessors()];
+            for (int i = 0; i < cpus.length; i++) {
+                cpus[i] = i;
+            }
+            nodes.add(cpus);
+        }
+        return new CpuTopology(nodes.toArray(new int[nodes.size()][]));
+    }
+
+    private static String readLine(File file) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line = reader.readLine();
+            return line != null ? line : "";
+        }
+    }
+
+    /**
+     * Parses a CPU list in the format of the kernel, like "0-3,8-11,16"
+     *
+     * @param cpuList list of CPUs
+     * @return ids of the CPUs in the list
+     * @throws IllegalArgumentException if the list is malformed
+     */
+    public static int[] parseCpuList(String cpuList) {
+        int[] cpus = new int[0];
+        int count = 0;
+        for (String range : cpuList.trim().split(",")) {
+            if (range.isEmpty()) {
+                continue;
+            }
+            int separator = range.indexOf('-');
+            int first;
+            int last;
+            try {
+                first = Integer.parseInt(separator < 0 ? range : range.substring(0, separator));
+                last = separator < 0 ? first : Integer.parseInt(range.substring(separator + 1));
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Malformed CPU list " + cpuList, ex);
+            }
+            if (first < 0 || last < first) {
+                throw new IllegalArgumentException("Malformed CPU list " + cpuList);
+            }
+
+            int rangeSize = last - first + 1;
+            if (count + rangeSize > cpus.length) {
+                cpus = Arrays.copyOf(cpus, count + rangeSize);
+            }
+            for (int cpu = first; cpu <= last; cpu++) {
+                cpus[count++] = cpu;
+            }
+        }
+        return cpus;
+    }
+
+    public int getNodeCount() {
+        return mNodes.length;
+    }
+
+    /**
+     * Gets the ids of the CPUs of a node
+     *
+     * @param node index of the node
+     * @return ids of the CPUs
+     */
+    public int[] getCpus(int node) {
+        return mNodes[node].clone();
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.raycoarana.awex.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Sets the CPU affinity of threads in Linux using taskset, no native code is needed. In any
+ * other system, or if taskset is not installed, the affinity is not changed.
+ */
+public final class ThreadAffinity {
+
+    private static final String THREAD_STAT_PATH = "/proc/thread-self/stat";
+
+    private ThreadAffinity() {
+    }
+
+    /**
+     * Restricts the current thread to be executed in the given CPUs
+     *
+     * @param cpus ids of the CPUs
+     * @return true if the affinity was changed
+     */
+    public static boolean setCurrentThreadAffinity(int... cpus) {
+        String threadId = getCurrentThreadId();
+        if (threadId == null || cpus.length == 0) {
+            return false;
+        }
+
+        try {
+            Process process = new ProcessBuilder("taskset", "-p", "-c", toCpuList(cpus), threadId)
+                    .redirectErrorStream(true)
+                    .start();
+            discard(process.getInputStream());
+            return process.waitFor() == 0;
+        } catch (IOException ex) {
+            return false;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Gets the id of the current thread in the kernel, that is not the same as Thread#getId().
+     * It is read from the stat file of the thread, where it is the first field.
+     *
+     * @return the id or null if it is not available
+     */
+    static String getCurrentThreadId() {
+        File stat = new File(THREAD_STAT_PATH);
+        if (!stat.exists()) {
+            return null;
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(stat))) {
+            String line = reader.readLine();
+            int separator = line != null ? line.indexOf(' ') : -1;
+            return separator > 0 ? line.substring(0, separator) : null;
+        } catch (IOException | SecurityException ex) {
+            return null;
+        }
+    }
+
+    static String toCpuList(int[] cpus) {
+        StringBuilder builder = new StringBuilder();
+        for (int cpu : cpus) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(cpu);
+        }
+        return builder.toString();
+    }
+
+    private static void discard(InputStream inputStream) throws IOException {
+        byte[] buffer = new byte[256];
+        try (InputStream stream = inputStream) {
+            while (stream.read(buffer) != -1) {
+                // Nothing to do
+            }
+        }
+    }
+
+}
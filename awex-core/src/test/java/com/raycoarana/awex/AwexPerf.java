@@ -78,6 +78,23 @@ public class AwexPerf extends BasePerf {
         mAwex.afterAll(tasks).getResult();
     }
 
+    @Test
+    public void benchSubmitTaskWithSpinningWorkers() throws Exception {
+        QueueOptions queueOptions = new QueueOptions().setWaitStrategy(QueueOptions.WAIT_SPIN_THEN_PARK);
+        Awex awex = new Awex(mThreadHelper, mLogger, new LinearWithRealTimePriorityPolicy(4, 4, queueOptions));
+
+        List<Promise<Integer, Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < numberOfTasks; i++) {
+            tasks.add(awex.submit(new Task<Integer, Void>() {
+                @Override
+                protected Integer run() throws InterruptedException {
+                    return doSomething();
+                }
+            }));
+        }
+        awex.afterAll(tasks).getResult();
+    }
+
     @Test
     public void benchReference() throws Exception {
         List<Future<Integer>> tasks = new ArrayList<>();
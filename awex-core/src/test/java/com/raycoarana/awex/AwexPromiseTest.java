@@ -18,6 +18,11 @@ import org.mockito.Mock;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.IsInstanceOf.instanceOf;
@@ -25,6 +30,7 @@ import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyString;
@@ -114,6 +120,98 @@ public class AwexPromiseTest extends BasePromiseTest {
         assertEquals(SOME_RESULT, mPromise.getResultOrDefault(SOME_DEFAULT_RESULT));
     }
 
+    @Test
+    public void shouldWakeUpWaitersWhenPromiseIsResolvedFromOtherThread() throws Exception {
+        setUpAwex();
+
+        mPromise = new AwexPromise<>(mAwex, mTask);
+        new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException ignored) {
+                }
+                mPromise.resolve(SOME_RESULT);
+            }
+        }.start();
+
+        assertEquals(SOME_RESULT, mPromise.getResult(1, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = TimeoutException.class)
+    public void shouldFailToGetResultWhenTimeoutExpires() throws Exception {
+        setUpAwex();
+
+        mPromise = new AwexPromise<>(mAwex, mTask);
+        mPromise.getResult(20, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void shouldStopWaitingWhenThreadIsInterrupted() throws Exception {
+        setUpAwex();
+
+        mPromise = new AwexPromise<>(mAwex, mTask);
+        Thread.currentThread().interrupt();
+        try {
+            mPromise.getResult();
+            fail();
+        } catch (InterruptedException ex) {
+            assertTrue(Thread.interrupted());
+        }
+        mPromise.resolve(SOME_RESULT);
+        assertEquals(SOME_RESULT, mPromise.getResult());
+    }
+
+    @Test
+    public void shouldGetResultOfPromiseFromFuture() throws Exception {
+        setUpAwex();
+
+        mPromise = new AwexPromise<>(mAwex, mTask);
+        Future<Integer> future = mPromise.toFuture();
+        assertFalse(future.isDone());
+        mPromise.resolve(SOME_RESULT);
+
+        assertTrue(future.isDone());
+        assertEquals(SOME_RESULT, future.get());
+    }
+
+    @Test
+    public void shouldWrapRejectionOfPromiseInExecutionException() throws Exception {
+        setUpAwex();
+
+        mPromise = new AwexPromise<>(mAwex, mTask);
+        Future<Integer> future = mPromise.toFuture();
+        mPromise.reject(REJECT_EXCEPTION);
+
+        try {
+            future.get(1, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException ex) {
+            assertEquals(REJECT_EXCEPTION, ex.getCause());
+        }
+    }
+
+    @Test
+    public void shouldCancelPromiseWhenFutureIsCancelledAndViceversa() throws Exception {
+        setUpAwex();
+
+        mPromise = new AwexPromise<>(mAwex, mTask);
+        assertTrue(mPromise.toFuture().cancel(true));
+        assertTrue(mPromise.isCancelled());
+
+        AwexPromise<Integer, Float> otherPromise = new AwexPromise<>(mAwex, mTask);
+        Future<Integer> future = otherPromise.toFuture();
+        otherPromise.cancelTask();
+        assertTrue(future.isCancelled());
+        assertFalse(future.cancel(true));
+        try {
+            future.get();
+            fail();
+        } catch (CancellationException ignored) {
+        }
+    }
+
     @Test(expected = IllegalStateException.class)
     public void shouldFailToResolveTwiceThePromise() {
         setUpAwex();
@@ -642,4 +740,164 @@ public class AwexPromiseTest extends BasePromiseTest {
         assertArrayEquals(new Integer[]{1, 2, 3}, values.toArray(new Integer[3]));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldCancelUpstreamPromiseWhenCancelThenPromise() {
+        setUpAwex();
+
+        AwexPromise<Integer, Void> originalPromise = new AwexPromise<>(mAwex, mTask);
+        Promise<Integer, Void> thenPromise = originalPromise.then(new ThenCallback<Integer, Integer, Void>() {
+            @Override
+            public Promise<Integer, Void> then(Integer result) {
+                return new AwexPromise<>(mAwex, mTask);
+            }
+        });
+
+        thenPromise.cancelTask();
+
+        assertTrue(originalPromise.isCancelled());
+    }
+
+    @Test
+    public void shouldExecuteInlineThenInCurrentThreadWhenAlreadyResolved() throws Exception {
+        setUpAwex();
+        givenThatUIThreadIsCurrentThread();
+
+        AwexPromise<Integer, Void> originalPromise = new AwexPromise<>(mAwex, mTask);
+        originalPromise.resolve(SOME_RESULT);
+        Promise<Integer, Void> thenPromise = originalPromise.then(new ThenCallback<Integer, Integer, Void>() {
+            @Override
+            public Promise<Integer, Void> then(Integer result) {
+                return new AwexPromise<Integer, Void>(mAwex, mTask).resolve(result + 1);
+            }
+        }, Promise.EXECUTE_INLINE);
+
+        assertEquals(SOME_RESULT + 1, (int) thenPromise.getResult());
+        verify(mAwex, never()).submit(any(Runnable.class));
+    }
+
+    @Test
+    public void shouldExecuteLongChainOfInlineThenWithoutStackOverflow() throws Exception {
+        setUpAwex();
+
+        AwexPromise<Integer, Void> originalPromise = new AwexPromise<>(mAwex, mTask);
+        Promise<Integer, Void> promise = originalPromise;
+        for (int i = 0; i < 1000; i++) {
+            promise = promise.then(new ThenCallback<Integer, Integer, Void>() {
+                @Override
+                public Promise<Integer, Void> then(Integer result) {
+                    return new AwexPromise<Integer, Void>(mAwex, mTask).resolve(result + 1);
+                }
+            }, Promise.EXECUTE_INLINE);
+        }
+        originalPromise.resolve(0);
+
+        assertEquals(1000, (int) promise.getResult());
+    }
+
+    @Test
+    public void shouldPostThenToUIThreadWithUIExecutionHint() {
+        setUpAwex();
+
+        AwexPromise<Integer, Void> originalPromise = new AwexPromise<>(mAwex, mTask);
+        originalPromise.then(new ThenCallback<Integer, Integer, Void>() {
+            @Override
+            public Promise<Integer, Void> then(Integer result) {
+                return new AwexPromise<Integer, Void>(mAwex, mTask).resolve(result);
+            }
+        }, Promise.EXECUTE_UI);
+        originalPromise.resolve(SOME_RESULT);
+
+        verify(mThreadHelper).post(any(Runnable.class));
+    }
+
+    @Test
+    public void shouldRejectThenPromiseWhenContinuationFails() throws Exception {
+        setUpAwex();
+
+        AwexPromise<Integer, Void> originalPromise = new AwexPromise<>(mAwex, mTask);
+        Promise<Integer, Void> thenPromise = originalPromise.then(new ThenCallback<Integer, Integer, Void>() {
+            @Override
+            public Promise<Integer, Void> then(Integer result) {
+                throw new IllegalStateException();
+            }
+        }, Promise.EXECUTE_INLINE);
+        originalPromise.resolve(SOME_RESULT);
+
+        assertTrue(thenPromise.isRejected());
+    }
+
+    @Test
+    public void shouldNotCancelUpstreamPromiseWhileOtherThenPromiseIsPending() {
+        setUpAwex();
+
+        AwexPromise<Integer, Void> originalPromise = new AwexPromise<>(mAwex, mTask);
+        ThenCallback<Integer, Integer, Void> thenCallback = new ThenCallback<Integer, Integer, Void>() {
+            @Override
+            public Promise<Integer, Void> then(Integer result) {
+                return new AwexPromise<>(mAwex, mTask);
+            }
+        };
+        Promise<Integer, Void> firstThenPromise = originalPromise.then(thenCallback);
+        Promise<Integer, Void> secondThenPromise = originalPromise.then(thenCallback);
+
+        firstThenPromise.cancelTask();
+        assertFalse(originalPromise.isCancelled());
+
+        secondThenPromise.cancelTask();
+        assertTrue(originalPromise.isCancelled());
+    }
+
+    @Test
+    public void shouldCancelInnerPromiseWhenCancelThenPromise() {
+        setUpAwex();
+
+        AwexPromise<Integer, Void> originalPromise = new AwexPromise<>(mAwex, mTask);
+        final AwexPromise<Integer, Void> innerPromise = new AwexPromise<>(mAwex, mTask);
+        Promise<Integer, Void> thenPromise = originalPromise.then(new ThenCallback<Integer, Integer, Void>() {
+            @Override
+            public Promise<Integer, Void> then(Integer result) {
+                return innerPromise;
+            }
+        });
+
+        originalPromise.resolve(SOME_RESULT);
+        thenPromise.cancelTask();
+
+        assertTrue(innerPromise.isCancelled());
+    }
+
+    @Test
+    public void shouldCancelThenPromiseWhenCancelUpstreamPromise() {
+        setUpAwex();
+
+        AwexPromise<Integer, Void> originalPromise = new AwexPromise<>(mAwex, mTask);
+        Promise<Integer, Void> thenPromise = originalPromise.then(new ThenCallback<Integer, Integer, Void>() {
+            @Override
+            public Promise<Integer, Void> then(Integer result) {
+                return new AwexPromise<>(mAwex, mTask);
+            }
+        });
+
+        originalPromise.cancelTask();
+
+        assertTrue(thenPromise.isCancelled());
+    }
+
+    @Test
+    public void shouldRejectThenPromiseWhenUpstreamPromiseFails() {
+        setUpAwex();
+
+        AwexPromise<Integer, Void> originalPromise = new AwexPromise<>(mAwex, mTask);
+        Promise<Integer, Void> thenPromise = originalPromise.then(new ThenCallback<Integer, Integer, Void>() {
+            @Override
+            public Promise<Integer, Void> then(Integer result) {
+                return new AwexPromise<>(mAwex, mTask);
+            }
+        });
+
+        originalPromise.reject(new Exception());
+
+        assertEquals(Promise.STATE_REJECTED, thenPromise.getState());
+    }
+
+}
@@ -1,7 +1,15 @@
 package com.raycoarana.awex;
 
+import com.raycoarana.awex.callbacks.DoneCallback;
+import com.raycoarana.awex.callbacks.ProgressCallback;
+import com.raycoarana.awex.exceptions.CircuitOpenException;
 import com.raycoarana.awex.exceptions.EmptyTasksException;
+import com.raycoarana.awex.exceptions.PromiseTimeoutException;
+import com.raycoarana.awex.exceptions.QueueFullException;
+import com.raycoarana.awex.metrics.LatencyHistogram;
 import com.raycoarana.awex.policy.LinearWithRealTimePriorityPolicy;
+import com.raycoarana.awex.state.PoolState;
+import com.raycoarana.awex.transform.Mapper;
 
 import org.junit.Before;
 import org.junit.Rule;
@@ -14,13 +22,18 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.IsInstanceOf.instanceOf;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 
 public class AwexTest {
@@ -42,6 +55,7 @@ public class AwexTest {
     private Integer mResult;
     private ArrayList<Long> mResultCollection;
     private ArrayList<Long> mExceptedCollection;
+    private AtomicInteger mQueueFullEvents;
 
     @Before
     public void setUp() {
@@ -442,6 +456,951 @@ public class AwexTest {
         semaphore.release();
     }
 
+    @Test(timeout = 5000)
+    public void shouldRecordTimingOfTaskLifeCycle() throws Exception {
+        setUpAwex();
+
+        final Semaphore callbackDelivered = new Semaphore(0);
+        Task<Integer, Float> task = givenCorrectTask(SOME_VALUE);
+        mAwex.submit(task).done(new DoneCallback<Integer>() {
+            @Override
+            public void onDone(Integer result) {
+                callbackDelivered.release();
+            }
+        });
+        callbackDelivered.acquire();
+
+        TaskTiming timing = task.getTiming();
+        assertTrue(timing.getSubmitTime() <= timing.getQueueTime());
+        assertTrue(timing.getQueueWaitTime() >= 0);
+        assertTrue(timing.getExecutionTime() >= 0);
+        assertTrue(timing.getCallbackDeliveryTime() >= 0);
+        assertEquals(timing.getFirstCallbackTime() - timing.getSubmitTime(), timing.getTotalTime());
+    }
+
+    @Test
+    public void shouldReportUnknownTimesOfNotExecutedTask() {
+        setUpAwex();
+
+        final Semaphore semaphore = new Semaphore(0);
+        mAwex.submit(new VoidTask(Task.PRIORITY_HIGH) {
+            @Override
+            protected void runWithoutResult() throws InterruptedException {
+                semaphore.acquire();
+            }
+        });
+        Task<Integer, Float> task = givenCorrectTask(SOME_VALUE);
+        mAwex.submit(task);
+
+        assertEquals(TaskTiming.UNKNOWN, task.getTiming().getStartTime());
+        assertEquals(TaskTiming.UNKNOWN, task.getTiming().getQueueWaitTime());
+
+        semaphore.release();
+    }
+
+    @Test
+    public void shouldExecuteFirstlyTaskWithEarliestDeadline() throws Exception {
+        setUpAwex(new QueueOptions().setOrder(QueueOptions.ORDER_BY_DEADLINE));
+
+        mResultCollection = new ArrayList<>();
+        final Semaphore blocker = new Semaphore(0);
+        mAwex.submit(new VoidTask(Task.PRIORITY_HIGH) {
+            @Override
+            protected void runWithoutResult() throws InterruptedException {
+                blocker.acquireUninterruptibly();
+            }
+        });
+
+        VoidTask noDeadlineTask = givenCollectingTaskWithQueueTimeout(-1);
+        mAwex.submit(noDeadlineTask);
+        VoidTask lateDeadlineTask = givenCollectingTaskWithQueueTimeout(5000);
+        mAwex.submit(lateDeadlineTask);
+        VoidTask earlyDeadlineTask = givenCollectingTaskWithQueueTimeout(2000);
+        mAwex.submit(earlyDeadlineTask);
+
+        blocker.release();
+        noDeadlineTask.getPromise().getResult();
+
+        assertEquals(Arrays.asList(earlyDeadlineTask.getId(), lateDeadlineTask.getId(), noDeadlineTask.getId()),
+                mResultCollection);
+    }
+
+    @Test
+    public void shouldDropTaskWithExpiredDeadlineWhenDequeued() throws Exception {
+        setUpAwex(new QueueOptions().setOrder(QueueOptions.ORDER_BY_DEADLINE));
+
+        final Semaphore blocker = new Semaphore(0);
+        mAwex.submit(new VoidTask(Task.PRIORITY_HIGH) {
+            @Override
+            protected void runWithoutResult() throws InterruptedException {
+                blocker.acquireUninterruptibly();
+            }
+        });
+        mResultCollection = new ArrayList<>();
+        VoidTask expiringTask = givenCollectingTaskWithQueueTimeout(50);
+        mAwex.submit(expiringTask);
+
+        Thread.sleep(200);
+        assertTrue(expiringTask.getSlack() <= 0);
+        assertFalse(expiringTask.getPromise().isCancelled());
+
+        blocker.release();
+        mAwex.submit(givenCorrectTask(SOME_VALUE)).getResult();
+
+        assertTrue(expiringTask.getPromise().isCancelled());
+        assertTrue(mResultCollection.isEmpty());
+    }
+
+    @Test
+    public void shouldExecuteFirstlyLowPriorityTaskThatAgedInQueue() throws Exception {
+        setUpAwex(new QueueOptions().setOrder(QueueOptions.ORDER_BY_AGED_PRIORITY).setAgingInterval(10));
+
+        mResultCollection = new ArrayList<>();
+        final Semaphore blocker = new Semaphore(0);
+        mAwex.submit(new VoidTask(Task.PRIORITY_REAL_TIME - 1) {
+            @Override
+            protected void runWithoutResult() throws InterruptedException {
+                blocker.acquireUninterruptibly();
+            }
+        });
+
+        VoidTask lowPriorityTask = givenCollectingTask(Task.PRIORITY_LOWEST);
+        mAwex.submit(lowPriorityTask);
+        Thread.sleep(100);
+        VoidTask highPriorityTask = givenCollectingTask(Task.PRIORITY_HIGH);
+        mAwex.submit(highPriorityTask);
+
+        blocker.release();
+        mAwex.afterAll(lowPriorityTask.getPromise(), highPriorityTask.getPromise()).getResult();
+
+        assertEquals(Arrays.asList(lowPriorityTask.getId(), highPriorityTask.getId()), mResultCollection);
+    }
+
+    @Test
+    public void shouldLimitConcurrencyOfTasksOfTheSameGroup() throws Exception {
+        String group = "io";
+        mAwex = new Awex(mThreadHelper, new ConsoleLogger(), new LinearWithRealTimePriorityPolicy(0, 4,
+                new QueueOptions().setFairShare(true).setGroupMaxConcurrency(group, 1)));
+
+        final AtomicInteger executing = new AtomicInteger();
+        final AtomicInteger maxExecuting = new AtomicInteger();
+        List<Promise<Void, Void>> promises = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            promises.add(mAwex.submit(givenGroupTask(group, executing, maxExecuting)));
+        }
+        mAwex.afterAll(promises).getResult();
+
+        assertEquals(1, maxExecuting.get());
+    }
+
+    @Test
+    public void shouldLimitConcurrencyOfTasksSubmittedWithLimiter() throws Exception {
+        setUpAwexWithThreads(4);
+
+        Limiter limiter = new Limiter(2);
+        final AtomicInteger executing = new AtomicInteger();
+        final AtomicInteger maxExecuting = new AtomicInteger();
+        List<Promise<Void, Void>> promises = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            promises.add(mAwex.submit(givenGroupTask(Task.DEFAULT_GROUP, executing, maxExecuting), limiter));
+        }
+        mAwex.afterAll(promises).getResult();
+
+        assertEquals(2, maxExecuting.get());
+    }
+
+    @Test
+    public void shouldContinueWithNextTaskOfLimiterWhenWaitingTaskIsCancelled() throws Exception {
+        setUpAwexWithThreads(2);
+
+        Limiter limiter = new Limiter(1);
+        final Semaphore blocker = new Semaphore(0);
+        mAwex.submit(new VoidTask() {
+            @Override
+            protected void runWithoutResult() throws InterruptedException {
+                blocker.acquireUninterruptibly();
+            }
+        }, limiter);
+        Promise<Integer, Float> cancelledPromise = mAwex.submit(givenCorrectTask(SOME_VALUE), limiter);
+        Promise<Integer, Float> lastPromise = mAwex.submit(givenCorrectTask(SOME_OTHER_VALUE), limiter);
+
+        cancelledPromise.cancelTask();
+        blocker.release();
+
+        assertEquals(SOME_OTHER_VALUE, lastPromise.getResult());
+        assertEquals(0, limiter.getWaiting());
+    }
+
+    @Test
+    public void shouldRejectTaskWithoutQueueingWhenCircuitIsOpen() throws Exception {
+        setUpAwex();
+
+        CircuitBreaker circuitBreaker = new CircuitBreaker(2, 0.5, 5000, 1);
+        for (int i = 0; i < 2; i++) {
+            mAwex.submit(givenErrorTask(ANY_ERROR), circuitBreaker).getResultOrDefault(null);
+        }
+        Thread.sleep(50);
+
+        mExecutionFlag = false;
+        Promise<Void, Void> promise = mAwex.submit(new VoidTask() {
+            @Override
+            protected void runWithoutResult() throws InterruptedException {
+                mExecutionFlag = true;
+            }
+        }, circuitBreaker);
+
+        assertEquals(CircuitBreaker.STATE_OPEN, circuitBreaker.getState());
+        assertTrue(promise.isRejected());
+        try {
+            promise.getResult();
+            fail();
+        } catch (CircuitOpenException ex) {
+            Thread.sleep(50);
+            assertFalse(mExecutionFlag);
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void shouldExecuteInlineQueuedTaskAwaitedByOtherTask() throws Exception {
+        setUpAwex();
+
+        Promise<Integer, Float> promise = mAwex.submit(new Task<Integer, Float>() {
+            @Override
+            protected Integer run() throws InterruptedException {
+                try {
+                    Promise<Integer, Float> childPromise = mAwex.submit(givenCorrectTask(SOME_VALUE));
+                    return childPromise.mapSingle(new Mapper<Integer, Integer>() {
+                        @Override
+                        public Integer map(Integer value) {
+                            return value + 1;
+                        }
+                    }).getResult();
+                } catch (InterruptedException ex) {
+                    throw ex;
+                } catch (Exception ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }
+        });
+
+        assertEquals(Integer.valueOf(SOME_VALUE + 1), promise.getResult());
+    }
+
+    @Test
+    public void shouldExecuteTasksWithSameAffinityKeySeriallyInSubmissionOrder() throws Exception {
+        mAwex = new Awex(mThreadHelper, new ConsoleLogger(), new LinearWithRealTimePriorityPolicy(0, 4));
+
+        mResultCollection = new ArrayList<>();
+        final AtomicInteger executing = new AtomicInteger();
+        final AtomicInteger maxExecuting = new AtomicInteger();
+        List<Promise<Void, Void>> promises = new ArrayList<>();
+        List<Long> submittedTasks = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            VoidTask task = givenAffinityTask("account", executing, maxExecuting);
+            promises.add(mAwex.submit(task));
+            submittedTasks.add(task.getId());
+        }
+        mAwex.afterAll(promises).getResult();
+
+        assertEquals(1, maxExecuting.get());
+        assertEquals(submittedTasks, mResultCollection);
+    }
+
+    @Test
+    public void shouldContinueWithNextTaskOfLaneWhenWaitingTaskIsCancelled() throws Exception {
+        setUpAwex();
+
+        mResultCollection = new ArrayList<>();
+        final Semaphore blocker = new Semaphore(0);
+        VoidTask firstTask = new VoidTask() {
+            @Override
+            protected void runWithoutResult() throws InterruptedException {
+                blocker.acquireUninterruptibly();
+            }
+
+            @Override
+            public Object getAffinityKey() {
+                return "account";
+            }
+        };
+        mAwex.submit(firstTask);
+        VoidTask secondTask = givenAffinityTask("account", new AtomicInteger(), new AtomicInteger());
+        mAwex.submit(secondTask);
+        VoidTask thirdTask = givenAffinityTask("account", new AtomicInteger(), new AtomicInteger());
+        mAwex.submit(thirdTask);
+
+        secondTask.getPromise().cancelTask();
+        blocker.release();
+        thirdTask.getPromise().getResult();
+
+        assertEquals(Arrays.asList(thirdTask.getId()), mResultCollection);
+    }
+
+    @Test
+    public void shouldRejectTaskWhenQueueIsFull() throws Exception {
+        Semaphore blocker = givenABlockedAwexWithBoundedQueue(QueueOptions.OVERFLOW_REJECT);
+
+        Promise<Integer, Float> queuedPromise = mAwex.submit(givenCorrectTask(SOME_VALUE));
+        Promise<Integer, Float> overflowPromise = mAwex.submit(givenCorrectTask(SOME_OTHER_VALUE));
+
+        assertRejectedBecauseQueueIsFull(overflowPromise);
+        assertEquals(1, mQueueFullEvents.get());
+        blocker.release();
+        assertEquals(SOME_VALUE, queuedPromise.getResult());
+    }
+
+    @Test
+    public void shouldDropLowestPriorityTaskWhenQueueIsFull() throws Exception {
+        Semaphore blocker = givenABlockedAwexWithBoundedQueue(QueueOptions.OVERFLOW_DROP_LOWEST_PRIORITY);
+
+        Promise<Void, Void> lowPriorityPromise = mAwex.submit(givenCollectingTask(Task.PRIORITY_LOW));
+        Promise<Void, Void> highPriorityPromise = mAwex.submit(givenCollectingTask(Task.PRIORITY_HIGH));
+        Promise<Void, Void> lowestPriorityPromise = mAwex.submit(givenCollectingTask(Task.PRIORITY_LOWEST));
+
+        assertRejectedBecauseQueueIsFull(lowPriorityPromise);
+        assertRejectedBecauseQueueIsFull(lowestPriorityPromise);
+        blocker.release();
+        highPriorityPromise.getResult();
+    }
+
+    @Test
+    public void shouldDropOldestTaskWhenQueueIsFull() throws Exception {
+        Semaphore blocker = givenABlockedAwexWithBoundedQueue(QueueOptions.OVERFLOW_DROP_OLDEST);
+
+        Promise<Void, Void> oldestPromise = mAwex.submit(givenCollectingTask(Task.PRIORITY_HIGH));
+        Promise<Void, Void> newestPromise = mAwex.submit(givenCollectingTask(Task.PRIORITY_LOW));
+
+        assertRejectedBecauseQueueIsFull(oldestPromise);
+        blocker.release();
+        newestPromise.getResult();
+    }
+
+    @Test
+    public void shouldExecuteTaskInCallerThreadWhenQueueIsFull() throws Exception {
+        Semaphore blocker = givenABlockedAwexWithBoundedQueue(QueueOptions.OVERFLOW_CALLER_RUNS);
+
+        mAwex.submit(givenCorrectTask(SOME_VALUE));
+        final Thread callerThread = Thread.currentThread();
+        Promise<Boolean, Void> promise = mAwex.submit(new Task<Boolean, Void>() {
+            @Override
+            protected Boolean run() throws InterruptedException {
+                return Thread.currentThread() == callerThread;
+            }
+        });
+
+        assertTrue(promise.isResolved());
+        assertTrue(promise.getResult());
+        blocker.release();
+    }
+
+    @Test
+    public void shouldRejectTaskWhenQueueIsStillFullAfterBlockTimeout() throws Exception {
+        Semaphore blocker = givenABlockedAwexWithBoundedQueue(QueueOptions.OVERFLOW_BLOCK);
+
+        mAwex.submit(givenCorrectTask(SOME_VALUE));
+        long startTime = System.nanoTime();
+        Promise<Integer, Float> overflowPromise = mAwex.submit(givenCorrectTask(SOME_OTHER_VALUE));
+
+        assertTrue(System.nanoTime() - startTime >= 50000000L);
+        assertRejectedBecauseQueueIsFull(overflowPromise);
+        blocker.release();
+    }
+
+    @Test(timeout = 1000)
+    public void shouldQueueBlockedTaskOnceAWorkerFreesSpace() throws Exception {
+        final Semaphore blocker = givenABlockedAwexWithBoundedQueue(QueueOptions.OVERFLOW_BLOCK);
+
+        Promise<Integer, Float> queuedPromise = mAwex.submit(givenCorrectTask(SOME_VALUE));
+        new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException ignored) {
+                }
+                blocker.release();
+            }
+        }.start();
+        Promise<Integer, Float> blockedPromise = mAwex.submit(givenCorrectTask(SOME_OTHER_VALUE));
+
+        assertEquals(SOME_VALUE, queuedPromise.getResult());
+        assertEquals(SOME_OTHER_VALUE, blockedPromise.getResult());
+    }
+
+    @Test
+    public void shouldRejectTaskQueuedFromAWorkerWhenQueueIsFull() throws Exception {
+        assertRejectedWhenQueuedFromAWorker(QueueOptions.OVERFLOW_BLOCK);
+    }
+
+    @Test
+    public void shouldNotExecuteTaskInWorkerThreadWhenQueueIsFull() throws Exception {
+        assertRejectedWhenQueuedFromAWorker(QueueOptions.OVERFLOW_CALLER_RUNS);
+    }
+
+    private void assertRejectedWhenQueuedFromAWorker(int overflowStrategy) throws Exception {
+        Semaphore blocker = givenABlockedAwexWithBoundedQueue(overflowStrategy);
+
+        Promise<Integer, Float> queuedPromise = mAwex.submit(givenCorrectTask(SOME_VALUE));
+        final AtomicReference<Promise<Integer, Float>> overflowPromise = new AtomicReference<>();
+        Promise<Void, Void> promise = mAwex.submit(new VoidTask(Task.PRIORITY_REAL_TIME) {
+            @Override
+            protected void runWithoutResult() throws InterruptedException {
+                overflowPromise.set(mAwex.submit(givenCorrectTask(SOME_OTHER_VALUE)));
+            }
+        });
+        promise.getResult();
+
+        assertRejectedBecauseQueueIsFull(overflowPromise.get());
+        blocker.release();
+        assertEquals(SOME_VALUE, queuedPromise.getResult());
+    }
+
+    @Test
+    public void shouldExecuteDelayedTaskAfterTheDelay() throws Exception {
+        setUpAwex();
+
+        long startTime = System.nanoTime();
+        Promise<Long, Void> promise = mAwex.schedule(new Task<Long, Void>() {
+            @Override
+            protected Long run() throws InterruptedException {
+                return System.nanoTime();
+            }
+        }, 50);
+
+        assertTrue(promise.getResult() - startTime >= 49000000L);
+    }
+
+    @Test
+    public void shouldNotExecuteDelayedTaskWhenCancelled() throws Exception {
+        setUpAwex();
+
+        mExecutionFlag = false;
+        Promise<Void, Void> promise = mAwex.schedule(new VoidTask() {
+            @Override
+            protected void runWithoutResult() throws InterruptedException {
+                mExecutionFlag = true;
+            }
+        }, 50);
+        promise.cancelTask();
+
+        Thread.sleep(100);
+        assertTrue(promise.isCancelled());
+        assertFalse(mExecutionFlag);
+    }
+
+    @Test(timeout = 2000)
+    public void shouldRejectDelayedTaskAndKeepTheTimerAliveWhenThePolicyFails() throws Exception {
+        setUpAwexFailingOnFirstTask();
+
+        try {
+            mAwex.schedule(givenCorrectTask(SOME_VALUE), 10).getResult();
+            fail();
+        } catch (IllegalStateException ex) {
+            assertEquals(ANY_ERROR, ex.getMessage());
+        }
+        assertEquals(SOME_OTHER_VALUE, mAwex.schedule(givenCorrectTask(SOME_OTHER_VALUE), 10).getResult());
+    }
+
+    @Test(timeout = 2000)
+    public void shouldRejectPeriodicScheduleWhenThePolicyFails() throws Exception {
+        setUpAwexFailingOnFirstTask();
+
+        Promise<Void, Integer> promise = mAwex.scheduleWithFixedDelay(givenCorrectTask(SOME_VALUE), 10, 20);
+
+        try {
+            promise.getResult();
+            fail();
+        } catch (IllegalStateException ex) {
+            assertEquals(ANY_ERROR, ex.getMessage());
+        }
+        assertEquals(SOME_OTHER_VALUE, mAwex.schedule(givenCorrectTask(SOME_OTHER_VALUE), 10).getResult());
+    }
+
+    @Test
+    public void shouldExecuteTaskAtFixedRateUntilCancelled() throws Exception {
+        setUpAwex();
+
+        assertPeriodicExecutionUntilCancelled(mAwex.scheduleAtFixedRate(givenCountingTask(), 0, 20));
+    }
+
+    @Test
+    public void shouldExecuteTaskWithFixedDelayUntilCancelled() throws Exception {
+        setUpAwex();
+
+        assertPeriodicExecutionUntilCancelled(mAwex.scheduleWithFixedDelay(givenCountingTask(), 0, 20));
+    }
+
+    @Test
+    public void shouldKeepExecutingTaskAtFixedRateAfterAnExecutionTimeout() throws Exception {
+        setUpAwex();
+
+        assertPeriodicExecutionUntilCancelled(mAwex.scheduleAtFixedRate(givenTaskTimingOutOnFirstExecution(), 0, 20));
+    }
+
+    @Test
+    public void shouldKeepExecutingTaskWithFixedDelayAfterAnExecutionTimeout() throws Exception {
+        setUpAwex();
+
+        assertPeriodicExecutionUntilCancelled(mAwex.scheduleWithFixedDelay(givenTaskTimingOutOnFirstExecution(), 0, 20));
+    }
+
+    @Test
+    public void shouldRetryFailingTaskUntilItSucceeds() throws Exception {
+        setUpAwex();
+
+        Promise<Integer, Float> promise = mAwex.retry(givenTaskFailingUntilAttempt(3),
+                new RetryPolicy().setMaxAttempts(3).setBackoff(10, 100, 2));
+
+        assertEquals(Integer.valueOf(3), promise.getResult());
+    }
+
+    @Test
+    public void shouldRejectWithLastExceptionWhenRetryAttemptsAreExhausted() throws Exception {
+        setUpAwex();
+
+        Promise<Integer, Float> promise = mAwex.retry(givenTaskFailingUntilAttempt(3),
+                new RetryPolicy().setMaxAttempts(2).setBackoff(10, 100, 2));
+
+        try {
+            promise.getResult();
+            fail();
+        } catch (IllegalStateException ex) {
+            assertEquals("attempt 2", ex.getMessage());
+        }
+    }
+
+    @Test
+    public void shouldNotRetryExceptionsNotRetryable() throws Exception {
+        setUpAwex();
+
+        Promise<Integer, Float> promise = mAwex.retry(givenTaskFailingUntilAttempt(3),
+                new RetryPolicy().setBackoff(10, 100, 2).abortOn(IllegalStateException.class));
+
+        try {
+            promise.getResult();
+            fail();
+        } catch (IllegalStateException ex) {
+            assertEquals("attempt 1", ex.getMessage());
+        }
+    }
+
+    @Test
+    public void shouldNotRetryWhenCancelledWhileWaitingBackoff() throws Exception {
+        setUpAwex();
+
+        final AtomicInteger attempts = new AtomicInteger();
+        Promise<Integer, Float> promise = mAwex.retry(new TaskFactory<Integer, Float>() {
+            @Override
+            public Task<Integer, Float> create(int attempt) {
+                attempts.incrementAndGet();
+                return givenErrorTask(ANY_ERROR);
+            }
+        }, new RetryPolicy().setBackoff(50, 100, 2).setJitter(0));
+
+        Thread.sleep(20);
+        promise.cancelTask();
+        Thread.sleep(100);
+
+        assertTrue(promise.isCancelled());
+        assertEquals(1, attempts.get());
+    }
+
+    @Test(timeout = 2000)
+    public void shouldRejectRetryWhenTheFactoryFails() throws Exception {
+        setUpAwex();
+
+        Promise<Integer, Float> promise = mAwex.retry(new TaskFactory<Integer, Float>() {
+            @Override
+            public Task<Integer, Float> create(int attempt) {
+                if (attempt > 1) {
+                    throw new IllegalArgumentException(ANY_ERROR);
+                }
+                return givenErrorTask(ANY_OTHER_ERROR);
+            }
+        }, new RetryPolicy().setBackoff(10, 100, 2));
+
+        try {
+            promise.getResult();
+            fail();
+        } catch (IllegalArgumentException ex) {
+            assertEquals(ANY_ERROR, ex.getMessage());
+        }
+    }
+
+    @Test
+    public void shouldRetryAttemptCancelledByAnExecutionTimeout() throws Exception {
+        setUpAwex();
+
+        Promise<Integer, Float> promise = mAwex.retry(new TaskFactory<Integer, Float>() {
+            @Override
+            public Task<Integer, Float> create(final int attempt) {
+                return new Task<Integer, Float>(Task.PRIORITY_NORMAL, -1, 30) {
+                    @Override
+                    protected Integer run() throws InterruptedException {
+                        if (attempt == 1) {
+                            Thread.sleep(100);
+                        }
+                        return attempt;
+                    }
+                };
+            }
+        }, new RetryPolicy().setMaxAttempts(3).setBackoff(10, 100, 2));
+
+        assertEquals(Integer.valueOf(2), promise.getResult());
+    }
+
+    private TaskFactory<Integer, Float> givenTaskFailingUntilAttempt(final int successfulAttempt) {
+        return new TaskFactory<Integer, Float>() {
+            @Override
+            public Task<Integer, Float> create(final int attempt) {
+                return new Task<Integer, Float>() {
+                    @Override
+                    protected Integer run() throws InterruptedException {
+                        if (attempt < successfulAttempt) {
+                            throw new IllegalStateException("attempt " + attempt);
+                        }
+                        return attempt;
+                    }
+                };
+            }
+        };
+    }
+
+    @Test
+    public void shouldResolveHedgeWithFastestCopyAndCancelTheOthers() throws Exception {
+        setUpAwexWithThreads(2);
+
+        final List<Task<Integer, Float>> copies = new ArrayList<>();
+        Promise<Integer, Float> promise = mAwex.hedge(new TaskFactory<Integer, Float>() {
+            @Override
+            public Task<Integer, Float> create(final int copy) {
+                Task<Integer, Float> task = new Task<Integer, Float>() {
+                    @Override
+                    protected Integer run() throws InterruptedException {
+                        if (copy == 1) {
+                            Thread.sleep(5000);
+                        }
+                        return copy;
+                    }
+                };
+                copies.add(task);
+                return task;
+            }
+        }, 20, 2);
+
+        assertEquals(Integer.valueOf(2), promise.getResult());
+        Thread.sleep(50);
+        assertTrue(copies.get(0).getPromise().isCancelled());
+    }
+
+    @Test
+    public void shouldNotLaunchHedgeCopyWhenFirstCopyCompletesBeforeDelay() throws Exception {
+        setUpAwexWithThreads(2);
+
+        final AtomicInteger copies = new AtomicInteger();
+        Promise<Integer, Float> promise = mAwex.hedge(givenCountingFactory(copies, 0), 100, 3);
+
+        assertEquals(Integer.valueOf(1), promise.getResult());
+        Thread.sleep(200);
+        assertEquals(1, copies.get());
+    }
+
+    @Test
+    public void shouldRejectHedgeWhenEveryCopyFails() throws Exception {
+        setUpAwexWithThreads(2);
+
+        final AtomicInteger copies = new AtomicInteger();
+        Promise<Integer, Float> promise = mAwex.hedge(new TaskFactory<Integer, Float>() {
+            @Override
+            public Task<Integer, Float> create(int copy) {
+                copies.incrementAndGet();
+                return givenErrorTask(ANY_ERROR);
+            }
+        }, 1000, 3);
+
+        try {
+            promise.getResult();
+            fail();
+        } catch (IllegalArgumentException ex) {
+            assertEquals(ANY_ERROR, ex.getMessage());
+        }
+        assertEquals(3, copies.get());
+    }
+
+    @Test(timeout = 2000)
+    public void shouldCountHedgeCopyThatCannotBeCreatedAsFailed() throws Exception {
+        setUpAwexWithThreads(2);
+
+        Promise<Integer, Float> promise = mAwex.hedge(new TaskFactory<Integer, Float>() {
+            @Override
+            public Task<Integer, Float> create(int copy) {
+                if (copy > 1) {
+                    throw new IllegalStateException(ANY_OTHER_ERROR);
+                }
+                return new Task<Integer, Float>() {
+                    @Override
+                    protected Integer run() throws InterruptedException {
+                        Thread.sleep(100);
+                        throw new IllegalArgumentException(ANY_ERROR);
+                    }
+                };
+            }
+        }, 20, 2);
+
+        try {
+            promise.getResult();
+            fail();
+        } catch (IllegalArgumentException ex) {
+            assertEquals(ANY_ERROR, ex.getMessage());
+        }
+    }
+
+    @Test
+    public void shouldNotLaunchHedgeCopyUntilEnoughLatenciesAreObserved() throws Exception {
+        setUpAwexWithThreads(2);
+
+        LatencyHistogram latencies = new LatencyHistogram();
+        final AtomicInteger copies = new AtomicInteger();
+        Promise<Integer, Float> promise = mAwex.hedge(givenCountingFactory(copies, 50), latencies, 2);
+
+        assertEquals(Integer.valueOf(1), promise.getResult());
+        assertEquals(1, copies.get());
+        assertEquals(1, latencies.getCount());
+    }
+
+    private TaskFactory<Integer, Float> givenCountingFactory(final AtomicInteger copies, final long duration) {
+        return new TaskFactory<Integer, Float>() {
+            @Override
+            public Task<Integer, Float> create(final int copy) {
+                copies.incrementAndGet();
+                return new Task<Integer, Float>() {
+                    @Override
+                    protected Integer run() throws InterruptedException {
+                        Thread.sleep(duration);
+                        return copy;
+                    }
+                };
+            }
+        };
+    }
+
+    @Test
+    public void shouldRejectPromiseAndCancelTaskWhenTimeoutExpires() throws Exception {
+        setUpAwex();
+
+        Promise<Integer, Float> taskPromise = mAwex.submit(givenSlowTask(5000));
+        Promise<Integer, Float> promise = taskPromise.timeout(50);
+
+        try {
+            promise.getResult();
+            fail();
+        } catch (PromiseTimeoutException ex) {
+            Thread.sleep(50);
+            assertTrue(taskPromise.isCancelled());
+        }
+    }
+
+    @Test
+    public void shouldResolveWithFallbackValueWhenTimeoutExpires() throws Exception {
+        setUpAwex();
+
+        Promise<Integer, Float> promise = mAwex.submit(givenSlowTask(5000))
+                .mapSingle(new Mapper<Integer, Integer>() {
+                    @Override
+                    public Integer map(Integer value) {
+                        return value + 1;
+                    }
+                })
+                .timeout(50, SOME_OTHER_VALUE);
+
+        assertEquals(SOME_OTHER_VALUE, promise.getResult());
+    }
+
+    @Test
+    public void shouldResolveWithResultWhenCompletedBeforeTimeout() throws Exception {
+        setUpAwex();
+
+        Promise<Integer, Float> promise = mAwex.submit(givenCorrectTask(SOME_VALUE)).timeout(1000);
+
+        assertEquals(SOME_VALUE, promise.getResult());
+    }
+
+    @Test(timeout = 5000)
+    public void shouldExecuteTasksQueuedWhileWorkersSpin() throws Exception {
+        setUpAwex(new QueueOptions().setWaitStrategy(QueueOptions.WAIT_SPIN_THEN_PARK).setSpinTime(1000));
+
+        List<Promise<Integer, Float>> promises = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            promises.add(mAwex.submit(givenCorrectTask(i)));
+            if (i % 10 == 0) {
+                Thread.sleep(2);
+            }
+        }
+
+        for (int i = 0; i < promises.size(); i++) {
+            assertEquals(i, (int) promises.get(i).getResult());
+        }
+    }
+
+    private Task<Integer, Float> givenSlowTask(final long duration) {
+        return new Task<Integer, Float>() {
+            @Override
+            protected Integer run() throws InterruptedException {
+                Thread.sleep(duration);
+                return SOME_VALUE;
+            }
+        };
+    }
+
+    private void assertPeriodicExecutionUntilCancelled(Promise<Void, Integer> promise) throws Exception {
+        final CountDownLatch executions = new CountDownLatch(3);
+        final AtomicInteger lastExecution = new AtomicInteger();
+        promise.progress(new ProgressCallback<Integer>() {
+            @Override
+            public void onProgress(Integer execution) {
+                lastExecution.set(execution);
+                executions.countDown();
+            }
+        });
+
+        assertTrue(executions.await(1, TimeUnit.SECONDS));
+        promise.cancelTask();
+        int executionsWhenCancelled = lastExecution.get();
+        Thread.sleep(100);
+
+        assertTrue(promise.isCancelled());
+        assertTrue(executionsWhenCancelled >= 3);
+        assertTrue(lastExecution.get() - executionsWhenCancelled <= 1);
+    }
+
+    private Task<Integer, Void> givenCountingTask() {
+        final AtomicInteger counter = new AtomicInteger();
+        return new Task<Integer, Void>() {
+            @Override
+            protected Integer run() throws InterruptedException {
+                return counter.incrementAndGet();
+            }
+        };
+    }
+
+    private Task<Integer, Void> givenTaskTimingOutOnFirstExecution() {
+        final AtomicInteger counter = new AtomicInteger();
+        return new Task<Integer, Void>(Task.PRIORITY_NORMAL, -1, 30) {
+            @Override
+            protected Integer run() throws InterruptedException {
+                int execution = counter.incrementAndGet();
+                if (execution == 1) {
+                    Thread.sleep(100);
+                }
+                return execution;
+            }
+        };
+    }
+
+    private Semaphore givenABlockedAwexWithBoundedQueue(int overflowStrategy) throws InterruptedException {
+        QueueOptions queueOptions = new QueueOptions()
+                .setCapacity(1)
+                .setOverflowStrategy(overflowStrategy)
+                .setBlockTimeout(50);
+        mQueueFullEvents = new AtomicInteger();
+        mAwex = new Awex(mThreadHelper, new ConsoleLogger(), new LinearWithRealTimePriorityPolicy(0, 1, queueOptions) {
+            @Override
+            public synchronized void onTaskAdded(PoolState poolState, Task task) {
+                super.onTaskAdded(poolState, task);
+            }
+
+            @Override
+            public synchronized void onTaskFinished(PoolState poolState, Task task) {
+                super.onTaskFinished(poolState, task);
+            }
+
+            @Override
+            public void onQueueFull(PoolState poolState, int queueId, Task task) {
+                mQueueFullEvents.incrementAndGet();
+            }
+        });
+        mResultCollection = new ArrayList<>();
+
+        final Semaphore started = new Semaphore(0);
+        final Semaphore blocker = new Semaphore(0);
+        mAwex.submit(new VoidTask() {
+            @Override
+            protected void runWithoutResult() throws InterruptedException {
+                started.release();
+                blocker.acquireUninterruptibly();
+            }
+        });
+        started.acquire();
+        return blocker;
+    }
+
+    private void assertRejectedBecauseQueueIsFull(Promise<?, ?> promise) {
+        assertTrue(promise.isRejected());
+        try {
+            promise.getResult();
+            fail();
+        } catch (Exception ex) {
+            assertThat(ex, instanceOf(QueueFullException.class));
+        }
+    }
+
+    private VoidTask givenAffinityTask(final String key, final AtomicInteger executing, final AtomicInteger maxExecuting) {
+        return new VoidTask() {
+            @Override
+            protected void runWithoutResult() throws InterruptedException {
+                int current = executing.incrementAndGet();
+                synchronized (maxExecuting) {
+                    maxExecuting.set(Math.max(maxExecuting.get(), current));
+                }
+                Thread.sleep(5);
+                mResultCollection.add(getId());
+                executing.decrementAndGet();
+            }
+
+            @Override
+            public Object getAffinityKey() {
+                return key;
+            }
+        };
+    }
+
+    private VoidTask givenGroupTask(final String group, final AtomicInteger executing, final AtomicInteger maxExecuting) {
+        return new VoidTask() {
+            @Override
+            protected void runWithoutResult() throws InterruptedException {
+                int current = executing.incrementAndGet();
+                synchronized (maxExecuting) {
+                    maxExecuting.set(Math.max(maxExecuting.get(), current));
+                }
+                Thread.sleep(20);
+                executing.decrementAndGet();
+            }
+
+            @Override
+            public String getGroup() {
+                return group;
+            }
+        };
+    }
+
+    private VoidTask givenCollectingTask(int priority) {
+        return new VoidTask(priority) {
+            @Override
+            protected void runWithoutResult() throws InterruptedException {
+                mResultCollection.add(getId());
+            }
+        };
+    }
+
+    private VoidTask givenCollectingTaskWithQueueTimeout(int queueTimeout) {
+        return new VoidTask(Task.PRIORITY_NORMAL, queueTimeout, -1) {
+            @Override
+            protected void runWithoutResult() throws InterruptedException {
+                mResultCollection.add(getId());
+            }
+        };
+    }
+
     private Task<Integer, Float> givenErrorTask(final String messageError) {
         return new Task<Integer, Float>() {
             @Override
@@ -466,4 +1425,25 @@ public class AwexTest {
         mAwex = new Awex(mThreadHelper, new ConsoleLogger(), new LinearWithRealTimePriorityPolicy(0, 1));
     }
 
+    private void setUpAwexFailingOnFirstTask() {
+        final AtomicInteger addedTasks = new AtomicInteger();
+        mAwex = new Awex(mThreadHelper, new ConsoleLogger(), new LinearWithRealTimePriorityPolicy(0, 1) {
+            @Override
+            public void onTaskAdded(PoolState poolState, Task task) {
+                if (addedTasks.getAndIncrement() == 0) {
+                    throw new IllegalStateException(ANY_ERROR);
+                }
+                super.onTaskAdded(poolState, task);
+            }
+        });
+    }
+
+    private void setUpAwexWithThreads(int maxThreads) {
+        mAwex = new Awex(mThreadHelper, new ConsoleLogger(), new LinearWithRealTimePriorityPolicy(0, maxThreads));
+    }
+
+    private void setUpAwex(QueueOptions queueOptions) {
+        mAwex = new Awex(mThreadHelper, new ConsoleLogger(), new LinearWithRealTimePriorityPolicy(0, 1, queueOptions));
+    }
+
 }
\ No newline at end of file
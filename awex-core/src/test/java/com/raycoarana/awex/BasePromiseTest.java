@@ -1,5 +1,7 @@
 package com.raycoarana.awex;
 
+import com.raycoarana.awex.metrics.NoMetrics;
+
 import org.junit.Before;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -37,6 +39,8 @@ public class BasePromiseTest {
     private void givenAnAwex() {
         when(mAwex.provideLogger()).thenReturn(mLogger);
         when(mAwex.provideUIThread()).thenReturn(mThreadHelper);
+        when(mAwex.provideEventLogger()).thenReturn(new LoggerEventLogger(mLogger));
+        when(mAwex.provideMetrics()).thenReturn(new NoMetrics());
         when(mAwex.getNumberOfThreads()).thenReturn(4);
 
         when(mAwex.newAwexPromise()).thenAnswer(new Answer<Object>() {
@@ -0,0 +1,125 @@
+package com.raycoarana.awex;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CircuitBreakerTest {
+
+    private static final long OPEN_DURATION = 1000 * 1000000L;
+
+    private long mNow;
+    private CircuitBreaker mCircuitBreaker;
+
+    @Before
+    public void setUp() {
+        mCircuitBreaker = new CircuitBreaker(4, 0.5, 1000, 2) {
+            @Override
+            long now() {
+                return mNow;
+            }
+        };
+    }
+
+    @Test
+    public void shouldOpenWhenFailureRateReachesThresholdOnceWindowIsFull() {
+        givenOutcomes(false, false, true);
+        assertEquals(CircuitBreaker.STATE_CLOSED, mCircuitBreaker.getState());
+
+        givenOutcomes(true);
+
+        assertEquals(CircuitBreaker.STATE_OPEN, mCircuitBreaker.getState());
+        assertEquals(CircuitBreaker.NO_PERMIT, mCircuitBreaker.tryAcquire());
+    }
+
+    @Test
+    public void shouldOnlyCountOutcomesInTheSlidingWindow() {
+        givenOutcomes(true, false, false, false, false, true);
+
+        assertEquals(CircuitBreaker.STATE_CLOSED, mCircuitBreaker.getState());
+        assertEquals(0.25, mCircuitBreaker.getFailureRate(), 0.001);
+    }
+
+    @Test
+    public void shouldAllowLimitedTrialsWhenOpenDurationExpires() {
+        givenAnOpenCircuit();
+
+        mNow += OPEN_DURATION;
+
+        assertTrue(mCircuitBreaker.tryAcquire() != CircuitBreaker.NO_PERMIT);
+        assertTrue(mCircuitBreaker.tryAcquire() != CircuitBreaker.NO_PERMIT);
+        assertEquals(CircuitBreaker.NO_PERMIT, mCircuitBreaker.tryAcquire());
+        assertEquals(CircuitBreaker.STATE_HALF_OPEN, mCircuitBreaker.getState());
+    }
+
+    @Test
+    public void shouldCloseWhenAllTrialsSucceed() {
+        long[] trials = givenAHalfOpenCircuit();
+
+        mCircuitBreaker.onSuccess(trials[0]);
+        mCircuitBreaker.onSuccess(trials[1]);
+
+        assertEquals(CircuitBreaker.STATE_CLOSED, mCircuitBreaker.getState());
+        assertEquals(0, mCircuitBreaker.getFailureRate(), 0.001);
+    }
+
+    @Test
+    public void shouldOpenAgainWhenATrialFails() {
+        long[] trials = givenAHalfOpenCircuit();
+
+        mCircuitBreaker.onSuccess(trials[0]);
+        mCircuitBreaker.onFailure(trials[1], new IllegalStateException());
+
+        assertEquals(CircuitBreaker.STATE_OPEN, mCircuitBreaker.getState());
+        assertEquals(CircuitBreaker.NO_PERMIT, mCircuitBreaker.tryAcquire());
+    }
+
+    @Test
+    public void shouldIgnoreOutcomesOfTasksSubmittedBeforeTheCircuitOpened() {
+        long stalePermit = mCircuitBreaker.tryAcquire();
+        long[] trials = givenAHalfOpenCircuit();
+
+        mCircuitBreaker.onSuccess(stalePermit);
+        mCircuitBreaker.onSuccess(stalePermit);
+        assertEquals(CircuitBreaker.STATE_HALF_OPEN, mCircuitBreaker.getState());
+        mCircuitBreaker.onFailure(stalePermit, new IllegalStateException());
+        assertEquals(CircuitBreaker.STATE_HALF_OPEN, mCircuitBreaker.getState());
+
+        mCircuitBreaker.onSuccess(trials[0]);
+        mCircuitBreaker.onSuccess(trials[1]);
+        assertEquals(CircuitBreaker.STATE_CLOSED, mCircuitBreaker.getState());
+    }
+
+    @Test
+    public void shouldAllowAnotherTrialWhenATrialIsCancelled() {
+        long[] trials = givenAHalfOpenCircuit();
+
+        mCircuitBreaker.onIgnored(trials[0]);
+
+        assertTrue(mCircuitBreaker.tryAcquire() != CircuitBreaker.NO_PERMIT);
+    }
+
+    private long[] givenAHalfOpenCircuit() {
+        givenAnOpenCircuit();
+        mNow += OPEN_DURATION;
+        return new long[]{mCircuitBreaker.tryAcquire(), mCircuitBreaker.tryAcquire()};
+    }
+
+    private void givenAnOpenCircuit() {
+        givenOutcomes(true, true, true, true);
+    }
+
+    private void givenOutcomes(boolean... failures) {
+        for (boolean failure : failures) {
+            long permit = mCircuitBreaker.tryAcquire();
+            if (failure) {
+                mCircuitBreaker.onFailure(permit, new IllegalStateException());
+            } else {
+                mCircuitBreaker.onSuccess(permit);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,150 @@
+package com.raycoarana.awex;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FairShareTaskContainerTest {
+
+    private static final String SOME_GROUP = "some group";
+    private static final String SOME_OTHER_GROUP = "some other group";
+
+    private QueueOptions mOptions;
+    private FairShareTaskContainer mContainer;
+
+    @Before
+    public void setUp() {
+        mOptions = new QueueOptions().setFairShare(true);
+    }
+
+    @Test
+    public void shouldExecuteGroupsInTurnsBasedOnItsWeight() {
+        mOptions.setGroupWeight(SOME_GROUP, 2);
+        givenAContainer();
+
+        for (int i = 0; i < 4; i++) {
+            mContainer.add(givenATask(SOME_GROUP));
+            mContainer.add(givenATask(SOME_OTHER_GROUP));
+        }
+
+        List<String> groups = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            groups.add(mContainer.poll().getGroup());
+        }
+
+        assertEquals(Arrays.asList(SOME_GROUP, SOME_GROUP, SOME_OTHER_GROUP,
+                SOME_GROUP, SOME_GROUP, SOME_OTHER_GROUP,
+                SOME_OTHER_GROUP, SOME_OTHER_GROUP), groups);
+        assertNull(mContainer.poll());
+    }
+
+    @Test
+    public void shouldExecuteFirstlyTaskWithMorePriorityInsideTheGroup() {
+        givenAContainer();
+
+        mContainer.add(givenATask(SOME_GROUP, Task.PRIORITY_LOW));
+        Task highPriorityTask = givenATask(SOME_GROUP, Task.PRIORITY_HIGH);
+        mContainer.add(highPriorityTask);
+
+        assertSame(highPriorityTask, mContainer.poll());
+    }
+
+    @Test
+    public void shouldForgetGroupWithoutOptionsOnceItsTasksFinish() {
+        givenAContainer();
+
+        Task task = givenATask(SOME_GROUP);
+        mContainer.add(task);
+        assertSame(task, mContainer.poll());
+        assertEquals(1, mContainer.numberOfGroups());
+
+        mContainer.release(task);
+
+        assertEquals(0, mContainer.numberOfGroups());
+    }
+
+    @Test
+    public void shouldForgetGroupWithoutOptionsWhenItsTasksAreRemoved() {
+        givenAContainer();
+
+        Task task = givenATask(SOME_GROUP);
+        mContainer.add(task);
+        mContainer.remove(task);
+
+        assertEquals(0, mContainer.numberOfGroups());
+    }
+
+    @Test
+    public void shouldKeepGroupWithOptionsWhenItHasNoTasks() {
+        mOptions.setGroupMaxConcurrency(SOME_GROUP, 1);
+        givenAContainer();
+
+        Task task = givenATask(SOME_GROUP);
+        mContainer.add(task);
+        mContainer.poll();
+        mContainer.release(task);
+
+        assertEquals(1, mContainer.numberOfGroups());
+    }
+
+    @Test
+    public void shouldSkipGroupWhenItsConcurrencyLimitIsReached() {
+        mOptions.setGroupMaxConcurrency(SOME_GROUP, 1);
+        givenAContainer();
+
+        Task firstTask = givenATask(SOME_GROUP);
+        Task secondTask = givenATask(SOME_GROUP);
+        Task otherGroupTask = givenATask(SOME_OTHER_GROUP);
+        mContainer.add(firstTask);
+        mContainer.add(secondTask);
+        mContainer.add(otherGroupTask);
+
+        assertSame(firstTask, mContainer.poll());
+        assertSame(otherGroupTask, mContainer.poll());
+        assertNull(mContainer.poll());
+
+        assertTrue(mContainer.release(firstTask));
+        assertSame(secondTask, mContainer.poll());
+    }
+
+    @Test
+    public void shouldRemoveTaskFromItsGroup() {
+        givenAContainer();
+
+        Task task = givenATask(SOME_GROUP);
+        mContainer.add(task);
+
+        assertTrue(mContainer.remove(task));
+        assertNull(mContainer.poll());
+    }
+
+    private void givenAContainer() {
+        mContainer = new FairShareTaskContainer(new TaskPriorityComparator(), mOptions);
+    }
+
+    private Task givenATask(String group) {
+        return givenATask(group, Task.PRIORITY_NORMAL);
+    }
+
+    private Task givenATask(final String group, int priority) {
+        return new VoidTask(priority) {
+            @Override
+            protected void runWithoutResult() throws InterruptedException {
+            }
+
+            @Override
+            public String getGroup() {
+                return group;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.raycoarana.awex;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LimiterTest {
+
+    private Limiter mLimiter;
+
+    @Test
+    public void shouldMakeTasksOverTheLimitWaitUntilAPermitIsReleased() {
+        mLimiter = new Limiter(1);
+        Task firstTask = givenATask(0);
+        Task secondTask = givenATask(0);
+
+        assertTrue(mLimiter.acquire(firstTask));
+        assertFalse(mLimiter.acquire(secondTask));
+        assertNull(mLimiter.next());
+        assertEquals(1, mLimiter.getWaiting());
+
+        mLimiter.release(firstTask);
+
+        assertSame(secondTask, mLimiter.next());
+        assertEquals(1, mLimiter.getInUse());
+        assertEquals(0, mLimiter.getWaiting());
+    }
+
+    @Test
+    public void shouldRemoveWaitingTask() {
+        mLimiter = new Limiter(1);
+        Task firstTask = givenATask(0);
+        Task secondTask = givenATask(0);
+        mLimiter.acquire(firstTask);
+        mLimiter.acquire(secondTask);
+
+        assertTrue(mLimiter.remove(secondTask));
+        mLimiter.release(firstTask);
+
+        assertNull(mLimiter.next());
+        assertEquals(0, mLimiter.getInUse());
+    }
+
+    @Test
+    public void shouldHalveLimitWhenLatencyIsOverThreshold() {
+        mLimiter = new Limiter(1, 4, 10);
+
+        completeTasks(4, 20);
+
+        assertEquals(2, mLimiter.getLimit());
+    }
+
+    @Test
+    public void shouldIncreaseLimitByOneWhenLatencyIsUnderThreshold() {
+        mLimiter = new Limiter(1, 4, 10);
+        completeTasks(4, 20);
+        completeTasks(2, 20);
+
+        completeTasks(1, 5);
+
+        assertEquals(2, mLimiter.getLimit());
+    }
+
+    private void completeTasks(int count, int executionTime) {
+        for (int i = 0; i < count; i++) {
+            Task task = givenATask(executionTime);
+            mLimiter.acquire(task);
+            mLimiter.release(task);
+        }
+    }
+
+    private Task givenATask(int executionTime) {
+        Task task = new VoidTask() {
+            @Override
+            protected void runWithoutResult() throws InterruptedException {
+            }
+        };
+        task.getTiming().markStart(1);
+        task.getTiming().markEnd(1 + executionTime * 1000000L);
+        return task;
+    }
+
+}
@@ -65,4 +65,22 @@ public class MapperTransformerPromiseTest extends BasePromiseTest {
         assertEquals(Promise.STATE_CANCELLED, mMappedValue.getState());
     }
 
+    @Test
+    public void shouldCancelSourcePromiseWhenCancelMappedPromise() {
+        setUpAwex();
+
+        mPromise = new AwexPromise<>(mAwex, mTask);
+
+        mMappedValue = mPromise.mapSingle(new Mapper<Integer, String>() {
+            @Override
+            public String map(Integer value) {
+                return String.valueOf(value);
+            }
+        });
+
+        mMappedValue.cancelTask();
+
+        assertEquals(Promise.STATE_CANCELLED, mPromise.getState());
+    }
+
 }
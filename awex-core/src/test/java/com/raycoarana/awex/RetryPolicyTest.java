@@ -0,0 +1,58 @@
+package com.raycoarana.awex;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RetryPolicyTest {
+
+    @Test
+    public void shouldGrowDelayExponentiallyUpToMaxDelay() {
+        RetryPolicy retryPolicy = new RetryPolicy()
+                .setBackoff(100, 500, 2)
+                .setJitter(0);
+
+        assertEquals(100, retryPolicy.getDelay(1));
+        assertEquals(200, retryPolicy.getDelay(2));
+        assertEquals(400, retryPolicy.getDelay(3));
+        assertEquals(500, retryPolicy.getDelay(4));
+    }
+
+    @Test
+    public void shouldSubtractJitterFromDelay() {
+        RetryPolicy retryPolicy = new RetryPolicy() {
+            @Override
+            double nextRandom() {
+                return 0.5;
+            }
+        }.setBackoff(100, 500, 2).setJitter(0.5);
+
+        assertEquals(75, retryPolicy.getDelay(1));
+        assertEquals(150, retryPolicy.getDelay(2));
+    }
+
+    @Test
+    public void shouldRetryAnyExceptionByDefault() {
+        RetryPolicy retryPolicy = new RetryPolicy();
+
+        assertTrue(retryPolicy.shouldRetry(new IOException()));
+        assertTrue(retryPolicy.shouldRetry(new IllegalStateException()));
+    }
+
+    @Test
+    public void shouldRetryOnlyRetryableExceptionsThatAreNotAborted() {
+        RetryPolicy retryPolicy = new RetryPolicy()
+                .retryOn(IOException.class)
+                .abortOn(InterruptedIOException.class);
+
+        assertTrue(retryPolicy.shouldRetry(new IOException()));
+        assertFalse(retryPolicy.shouldRetry(new InterruptedIOException()));
+        assertFalse(retryPolicy.shouldRetry(new IllegalStateException()));
+    }
+
+}
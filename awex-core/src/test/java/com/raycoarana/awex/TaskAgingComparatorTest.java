@@ -0,0 +1,41 @@
+package com.raycoarana.awex;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class TaskAgingComparatorTest {
+
+    private static final long AGING_INTERVAL = 100;
+
+    private final TaskAgingComparator mComparator = new TaskAgingComparator(AGING_INTERVAL);
+
+    @Test
+    public void shouldPutOlderTaskFirstWhenItAgedPastAHigherPriority() {
+        Task lowPriorityTask = givenQueuedTask(Task.PRIORITY_LOW, 0, 0);
+        Task normalPriorityTask = givenQueuedTask(Task.PRIORITY_NORMAL, 150, 0);
+
+        assertEquals(-1, mComparator.compare(lowPriorityTask, normalPriorityTask));
+    }
+
+    @Test
+    public void shouldBreakTiesByRank() {
+        Task lowRankTask = givenQueuedTask(Task.PRIORITY_NORMAL, 0, 1);
+        Task highRankTask = givenQueuedTask(Task.PRIORITY_NORMAL, 0, 5);
+
+        assertEquals(1, mComparator.compare(lowRankTask, highRankTask));
+        assertEquals(-1, mComparator.compare(highRankTask, lowRankTask));
+    }
+
+    private Task givenQueuedTask(int priority, long queueTime, long rank) {
+        Task task = new VoidTask(priority) {
+            @Override
+            protected void runWithoutResult() throws InterruptedException {
+            }
+        };
+        task.getTiming().markQueue(queueTime + 1);
+        task.setRank(rank);
+        return task;
+    }
+
+}
@@ -0,0 +1,116 @@
+package com.raycoarana.awex;
+
+import com.raycoarana.awex.policy.LinearWithRealTimePriorityPolicy;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TaskGraphTest {
+
+    private static final String ANY_ERROR = "Argument not valid!";
+
+    @Mock
+    private ThreadHelper mThreadHelper;
+
+    private Awex mAwex;
+    private List<String> mExecutions;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        mAwex = new Awex(mThreadHelper, new ConsoleLogger(), new LinearWithRealTimePriorityPolicy(0, 1));
+        mExecutions = Collections.synchronizedList(new ArrayList<String>());
+    }
+
+    @Test
+    public void shouldExecuteNodesAfterItsDependenciesPassingResults() throws Exception {
+        TaskGraph graph = new TaskGraph(mAwex);
+        final TaskGraph.Node<Integer> first = graph.add(givenATask("first", 2));
+        final TaskGraph.Node<Integer> second = graph.add(givenATask("second", 3));
+        TaskGraph.Node<Integer> sum = graph.add(new Task<Integer, Void>() {
+            @Override
+            protected Integer run() throws InterruptedException {
+                mExecutions.add("sum");
+                return first.getResult() + second.getResult();
+            }
+        }, first, second);
+
+        graph.execute().getResult();
+
+        assertEquals(5, (int) sum.getResult());
+        assertEquals("sum", mExecutions.get(2));
+        assertTrue(sum.getTiming().getExecutionTime() != TaskTiming.UNKNOWN);
+    }
+
+    @Test
+    public void shouldExecuteFirstTheNodesInTheCriticalPath() throws Exception {
+        TaskGraph graph = new TaskGraph(mAwex);
+        TaskGraph.Node<Integer> root = graph.add(givenATask("root", 0));
+        graph.add(givenATask("short", 0), root);
+        TaskGraph.Node<Integer> longPath = graph.add(givenATask("long", 0), 2, root);
+        graph.add(givenATask("end", 0), longPath);
+
+        graph.execute().getResult();
+
+        assertEquals(4, root.getCriticalPath());
+        assertEquals(3, longPath.getCriticalPath());
+        assertEquals("long", mExecutions.get(1));
+    }
+
+    @Test
+    public void shouldNotExecuteDownstreamNodesOfFailedNode() throws Exception {
+        TaskGraph graph = new TaskGraph(mAwex);
+        TaskGraph.Node<Integer> failing = graph.add(new Task<Integer, Void>() {
+            @Override
+            protected Integer run() throws InterruptedException {
+                throw new IllegalArgumentException(ANY_ERROR);
+            }
+        });
+        TaskGraph.Node<Integer> downstream = graph.add(givenATask("downstream", 0), failing);
+        graph.add(givenATask("independent", 0));
+
+        Promise<Void, Void> promise = graph.execute();
+        try {
+            promise.getResult();
+            fail();
+        } catch (IllegalArgumentException ex) {
+            assertEquals(ANY_ERROR, ex.getMessage());
+        }
+
+        assertTrue(downstream.isCancelled());
+        assertFalse(mExecutions.contains("downstream"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRejectGraphWithCycles() {
+        TaskGraph graph = new TaskGraph(mAwex);
+        TaskGraph.Node<Integer> first = graph.add(givenATask("first", 0));
+        TaskGraph.Node<Integer> second = graph.add(givenATask("second", 0), first);
+        first.dependsOn(second);
+
+        graph.execute();
+    }
+
+    private Task<Integer, Void> givenATask(final String name, final int result) {
+        return new Task<Integer, Void>() {
+            @Override
+            protected Integer run() throws InterruptedException {
+                mExecutions.add(name);
+                return result;
+            }
+        };
+    }
+
+}
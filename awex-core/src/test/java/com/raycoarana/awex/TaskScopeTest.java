@@ -0,0 +1,128 @@
+package com.raycoarana.awex;
+
+import com.raycoarana.awex.exceptions.ScopeException;
+import com.raycoarana.awex.policy.LinearWithRealTimePriorityPolicy;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TaskScopeTest {
+
+    private static final String ANY_ERROR = "Argument not valid!";
+
+    @Mock
+    private ThreadHelper mThreadHelper;
+
+    private Awex mAwex;
+    private AtomicInteger mExecutions;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        mAwex = new Awex(mThreadHelper, new ConsoleLogger(), new LinearWithRealTimePriorityPolicy(0, 4));
+        mExecutions = new AtomicInteger();
+    }
+
+    @Test
+    public void shouldJoinTasksOfScopeIncludingTheOnesTheySubmit() throws Exception {
+        try (TaskScope scope = new TaskScope(mAwex)) {
+            scope.submit(new VoidTask() {
+                @Override
+                protected void runWithoutResult() throws InterruptedException {
+                    mAwex.submit(givenASlowTask(50));
+                    mAwex.submit(givenASlowTask(50));
+                    mExecutions.incrementAndGet();
+                }
+            });
+        }
+
+        assertEquals(3, mExecutions.get());
+    }
+
+    @Test
+    public void shouldCancelRestOfTasksWhenATaskFailsInFailFastMode() throws Exception {
+        TaskScope scope = new TaskScope(mAwex, TaskScope.MODE_FAIL_FAST);
+        scope.submit(givenAFailingTask());
+        Promise<Void, Void> slowPromise = scope.submit(givenASlowTask(5000));
+
+        try {
+            scope.close();
+            fail();
+        } catch (ScopeException ex) {
+            assertEquals(1, ex.getCount());
+            assertEquals(ANY_ERROR, ex.getException(0).getMessage());
+        }
+        assertTrue(scope.isCancelled());
+        assertTrue(slowPromise.isCancelled());
+    }
+
+    @Test
+    public void shouldExecuteAllTasksAndAggregateExceptionsInWaitAllMode() throws Exception {
+        TaskScope scope = new TaskScope(mAwex, TaskScope.MODE_WAIT_ALL);
+        scope.submit(givenAFailingTask());
+        Promise<Void, Void> slowPromise = scope.submit(givenASlowTask(50));
+        scope.submit(givenAFailingTask());
+
+        try {
+            scope.close();
+            fail();
+        } catch (ScopeException ex) {
+            assertEquals(2, ex.getCount());
+        }
+        assertTrue(slowPromise.isResolved());
+    }
+
+    @Test
+    public void shouldCancelTaskSubmittedToCancelledScope() throws Exception {
+        TaskScope scope = new TaskScope(mAwex);
+        scope.cancel();
+
+        Promise<Void, Void> promise = scope.submit(givenASlowTask(0));
+        scope.close();
+
+        assertTrue(promise.isCancelled());
+        assertEquals(0, mExecutions.get());
+    }
+
+    @Test
+    public void shouldCancelScopeAndKeepInterruptedFlagWhenInterruptedWhileClosing() throws Exception {
+        TaskScope scope = new TaskScope(mAwex);
+        Promise<Void, Void> promise = scope.submit(givenASlowTask(5000));
+
+        Thread.currentThread().interrupt();
+        scope.close();
+
+        assertTrue(Thread.interrupted());
+        assertTrue(scope.isCancelled());
+        assertTrue(promise.isCancelled());
+    }
+
+    private VoidTask givenASlowTask(final long duration) {
+        return new VoidTask() {
+            @Override
+            protected void runWithoutResult() throws InterruptedException {
+                Thread.sleep(duration);
+                mExecutions.incrementAndGet();
+            }
+        };
+    }
+
+    private VoidTask givenAFailingTask() {
+        return new VoidTask() {
+            @Override
+            protected void runWithoutResult() throws InterruptedException {
+                throw new IllegalArgumentException(ANY_ERROR);
+            }
+        };
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.raycoarana.awex;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TaskTimingTest {
+
+    private static final int THREADS = 8;
+
+    @Test
+    public void shouldKeepOnlyTheFirstCallbackTime() {
+        TaskTiming timing = new TaskTiming();
+
+        assertTrue(timing.markFirstCallback(10));
+        assertFalse(timing.markFirstCallback(20));
+
+        assertEquals(10, timing.getFirstCallbackTime());
+    }
+
+    @Test
+    public void shouldMarkFirstCallbackOnceWhenDeliveredConcurrently() throws Exception {
+        final TaskTiming timing = new TaskTiming();
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger firstCallbacks = new AtomicInteger();
+
+        Thread[] threads = new Thread[THREADS];
+        for (int i = 0; i < THREADS; i++) {
+            final long timestamp = i + 1;
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException ex) {
+                        return;
+                    }
+                    if (timing.markFirstCallback(timestamp)) {
+                        firstCallbacks.incrementAndGet();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1, firstCallbacks.get());
+    }
+
+    @Test
+    public void shouldForgetFirstCallbackWhenReset() {
+        TaskTiming timing = new TaskTiming();
+        timing.markFirstCallback(10);
+
+        timing.reset();
+
+        assertEquals(TaskTiming.UNKNOWN, timing.getFirstCallbackTime());
+        assertTrue(timing.markFirstCallback(20));
+    }
+
+}
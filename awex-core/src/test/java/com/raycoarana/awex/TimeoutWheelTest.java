@@ -0,0 +1,104 @@
+package com.raycoarana.awex;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.TimerTask;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class TimeoutWheelTest {
+
+    @Mock
+    private Awex mAwex;
+
+    private TimeoutWheel mTimeoutWheel;
+    private int mExpirations;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        mTimeoutWheel = new TimeoutWheel(mAwex);
+    }
+
+    @Test
+    public void shouldExpireTimeoutAfterItsDelay() {
+        mTimeoutWheel.add(givenATimeout(), 30);
+        TimerTask tickTask = captureTickTask(1);
+
+        tick(tickTask, 3);
+        assertEquals(0, mExpirations);
+        tick(tickTask, 1);
+        assertEquals(1, mExpirations);
+        assertEquals(0, mTimeoutWheel.getPending());
+    }
+
+    @Test
+    public void shouldExpireTimeoutLongerThanOneTurnOfTheWheel() {
+        mTimeoutWheel.add(givenATimeout(), 600 * TimeoutWheel.TICK_DURATION);
+        TimerTask tickTask = captureTickTask(1);
+
+        tick(tickTask, 600);
+        assertEquals(0, mExpirations);
+        tick(tickTask, 1);
+        assertEquals(1, mExpirations);
+    }
+
+    @Test
+    public void shouldNotExpireCancelledTimeout() {
+        TimeoutWheel.Timeout timeout = givenATimeout();
+        mTimeoutWheel.add(timeout, 10);
+        mTimeoutWheel.add(givenATimeout(), 10);
+        TimerTask tickTask = captureTickTask(1);
+
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel());
+        tick(tickTask, 2);
+
+        assertEquals(1, mExpirations);
+        assertEquals(0, mTimeoutWheel.getPending());
+    }
+
+    @Test
+    public void shouldStopTickingWhenThereAreNoPendingTimeouts() {
+        mTimeoutWheel.add(givenATimeout(), 10);
+        TimerTask tickTask = captureTickTask(1);
+        tick(tickTask, 2);
+
+        mTimeoutWheel.add(givenATimeout(), 10);
+
+        captureTickTask(2);
+    }
+
+    private TimeoutWheel.Timeout givenATimeout() {
+        return new TimeoutWheel.Timeout() {
+            @Override
+            protected void onExpired() {
+                mExpirations++;
+            }
+        };
+    }
+
+    private TimerTask captureTickTask(int times) {
+        ArgumentCaptor<TimerTask> captor = ArgumentCaptor.forClass(TimerTask.class);
+        verify(mAwex, times(times)).scheduleTimer(captor.capture(),
+                eq(TimeoutWheel.TICK_DURATION), eq(TimeoutWheel.TICK_DURATION));
+        return captor.getValue();
+    }
+
+    private void tick(TimerTask tickTask, int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            tickTask.run();
+        }
+    }
+
+}
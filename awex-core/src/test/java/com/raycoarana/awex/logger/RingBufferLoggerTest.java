@@ -0,0 +1,105 @@
+package com.raycoarana.awex.logger;
+
+import com.raycoarana.awex.LogEvent;
+import com.raycoarana.awex.Logger;
+import com.raycoarana.awex.Task;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RingBufferLoggerTest {
+
+    private static final int SOME_CAPACITY = 4;
+    private static final long SOME_TASK_ID = 42;
+    private static final long SOME_WORKER_ID = 3;
+
+    private final List<String> mMessages = Collections.synchronizedList(new ArrayList<String>());
+    private final Logger mLogger = new Logger() {
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+
+        @Override
+        public void v(String message) {
+            mMessages.add(message);
+        }
+
+        @Override
+        public void e(String message, Exception ex) {
+        }
+    };
+
+    private RingBufferLogger mRingBufferLogger;
+
+    @Before
+    public void setUp() {
+        mRingBufferLogger = new RingBufferLogger(mLogger, SOME_CAPACITY);
+    }
+
+    @After
+    public void tearDown() {
+        mRingBufferLogger.close();
+    }
+
+    @Test
+    public void shouldFormatEventsInOrder() {
+        mRingBufferLogger.log(LogEvent.TASK_STATE_CHANGED, SOME_TASK_ID, Task.STATE_RUNNING);
+        mRingBufferLogger.v("Some message");
+        mRingBufferLogger.log(LogEvent.WORKER_END_TASK, SOME_WORKER_ID, SOME_TASK_ID);
+
+        mRingBufferLogger.flush();
+
+        assertEquals(3, mMessages.size());
+        assertEquals("Task 42 state changed to RUNNING", mMessages.get(0));
+        assertEquals("Some message", mMessages.get(1));
+        assertEquals("Worker 3 ends executing task 42", mMessages.get(2));
+    }
+
+    @Test
+    public void shouldDropOldestEventsWhenBufferOverflows() {
+        synchronized (mRingBufferLogger) {
+            for (int i = 0; i < SOME_CAPACITY + 2; i++) {
+                mRingBufferLogger.log(LogEvent.WORKER_STARTING, i, 0);
+            }
+        }
+
+        mRingBufferLogger.flush();
+
+        assertEquals(2, mRingBufferLogger.getDroppedEvents());
+        assertEquals(SOME_CAPACITY, mMessages.size());
+        assertEquals("Worker 2 starting...", mMessages.get(0));
+        assertEquals("Worker 5 starting...", mMessages.get(SOME_CAPACITY - 1));
+    }
+
+    @Test(timeout = 1000)
+    public void shouldWakeUpToFormatEventsPublishedWhileIdle() throws Exception {
+        Thread.sleep(20);
+
+        mRingBufferLogger.v("Some message");
+
+        while (mMessages.isEmpty()) {
+            Thread.sleep(1);
+        }
+        assertEquals("Some message", mMessages.get(0));
+    }
+
+    @Test
+    public void shouldFormatPendingEventsWhenClosed() {
+        mRingBufferLogger.v("Some message");
+
+        mRingBufferLogger.close();
+
+        assertEquals(1, mMessages.size());
+        assertEquals("Some message", mMessages.get(0));
+    }
+
+}
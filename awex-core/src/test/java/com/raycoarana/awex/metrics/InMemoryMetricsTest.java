@@ -0,0 +1,82 @@
+package com.raycoarana.awex.metrics;
+
+import com.raycoarana.awex.Awex;
+import com.raycoarana.awex.Logger;
+import com.raycoarana.awex.Promise;
+import com.raycoarana.awex.Task;
+import com.raycoarana.awex.ThreadHelper;
+import com.raycoarana.awex.policy.LinearWithRealTimePriorityPolicy;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class InMemoryMetricsTest {
+
+    private static final int QUEUE_ID = 1;
+    private static final int NUMBER_OF_TASKS = 10;
+
+    @Mock
+    private ThreadHelper mThreadHelper;
+    @Mock
+    private Logger mLogger;
+
+    private InMemoryMetrics mMetrics;
+    private Awex mAwex;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        mMetrics = new InMemoryMetrics();
+        mAwex = new Awex(mThreadHelper, mLogger, new LinearWithRealTimePriorityPolicy(0, 1), mMetrics);
+    }
+
+    @Test(timeout = 5000)
+    public void shouldCountEveryTaskTransition() throws Exception {
+        List<Promise<Integer, Void>> promises = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_TASKS; i++) {
+            promises.add(mAwex.submit(new Task<Integer, Void>() {
+                @Override
+                protected Integer run() throws InterruptedException {
+                    Thread.sleep(1);
+                    return 42;
+                }
+            }));
+        }
+        mAwex.afterAll(promises).getResult();
+
+        assertEquals(NUMBER_OF_TASKS, mMetrics.getSubmittedTasks());
+        assertEquals(NUMBER_OF_TASKS, mMetrics.getQueuedTasks());
+        assertEquals(NUMBER_OF_TASKS, mMetrics.getStartedTasks());
+        assertEquals(NUMBER_OF_TASKS, mMetrics.getFinishedTasks());
+        assertEquals(NUMBER_OF_TASKS, mMetrics.getQueueWaitTime().getCount());
+        assertEquals(NUMBER_OF_TASKS, mMetrics.getExecutionTime().getCount());
+        assertTrue(mMetrics.getExecutionTime().getValueAtPercentile(50) >= 1000000);
+        assertTrue(mMetrics.getMaxQueueDepth(QUEUE_ID) > 0);
+        assertTrue(mMetrics.getWorkersBusyTime() > 0);
+    }
+
+    @Test(timeout = 5000)
+    public void shouldCountCancelledTasks() throws Exception {
+        Promise<Integer, Void> promise = mAwex.submit(new Task<Integer, Void>() {
+            @Override
+            protected Integer run() throws InterruptedException {
+                Thread.sleep(10000);
+                return 42;
+            }
+        });
+
+        promise.cancelTask(true);
+
+        assertEquals(1, mMetrics.getCancelledTasks());
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.raycoarana.awex.metrics;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    private LatencyHistogram mLatencyHistogram;
+
+    @Before
+    public void setUp() {
+        mLatencyHistogram = new LatencyHistogram();
+    }
+
+    @Test
+    public void shouldReturnZeroWhenNothingIsRecorded() {
+        assertEquals(0, mLatencyHistogram.getCount());
+        assertEquals(0, mLatencyHistogram.getValueAtPercentile(99));
+        assertEquals(0, mLatencyHistogram.getMean(), 0);
+    }
+
+    @Test
+    public void shouldRecordSmallValuesExactly() {
+        for (int i = 1; i <= 10; i++) {
+            mLatencyHistogram.record(i);
+        }
+
+        assertEquals(10, mLatencyHistogram.getCount());
+        assertEquals(5, mLatencyHistogram.getValueAtPercentile(50));
+        assertEquals(10, mLatencyHistogram.getValueAtPercentile(100));
+        assertEquals(10, mLatencyHistogram.getMax());
+        assertEquals(5.5, mLatencyHistogram.getMean(), 0.001);
+    }
+
+    @Test
+    public void shouldApproximateLargeValuesWithBoundedError() {
+        for (int i = 1; i <= 1000; i++) {
+            mLatencyHistogram.record(i * 1000000L);
+        }
+
+        assertWithinError(500000000L, mLatencyHistogram.getValueAtPercentile(50));
+        assertWithinError(950000000L, mLatencyHistogram.getValueAtPercentile(95));
+        assertWithinError(990000000L, mLatencyHistogram.getValueAtPercentile(99));
+        assertEquals(1000000000L, mLatencyHistogram.getMax());
+    }
+
+    @Test
+    public void shouldRecordNegativeValuesAsZero() {
+        mLatencyHistogram.record(-10);
+
+        assertEquals(1, mLatencyHistogram.getCount());
+        assertEquals(0, mLatencyHistogram.getMax());
+    }
+
+    @Test
+    public void shouldMapEveryValueToABucketThatContainsIt() {
+        long[] values = {0, 31, 32, 33, 63, 64, 1000, 123456789L, Long.MAX_VALUE};
+        for (long value : values) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(LatencyHistogram.highestValueOf(index) >= value);
+            if (index > 0) {
+                assertTrue(LatencyHistogram.highestValueOf(index - 1) < value);
+            }
+        }
+    }
+
+    @Test
+    public void shouldForgetEverythingWhenReset() {
+        mLatencyHistogram.record(1000);
+
+        mLatencyHistogram.reset();
+
+        assertEquals(0, mLatencyHistogram.getCount());
+        assertEquals(0, mLatencyHistogram.getMax());
+        assertEquals(0, mLatencyHistogram.getValueAtPercentile(50));
+    }
+
+    private void assertWithinError(long expected, long value) {
+        assertTrue("Expected ~" + expected + " but was " + value, Math.abs(value - expected) <= expected / 32);
+    }
+
+}
@@ -0,0 +1,203 @@
+package com.raycoarana.awex.policy;
+
+import com.raycoarana.awex.PoolManager;
+import com.raycoarana.awex.QueueOptions;
+import com.raycoarana.awex.Task;
+import com.raycoarana.awex.TaskTiming;
+import com.raycoarana.awex.state.PoolState;
+import com.raycoarana.awex.state.QueueState;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AdaptiveConcurrencyPolicyTest {
+
+    private static final int SAMPLING_INTERVAL = 100;
+    private static final long SAMPLING_INTERVAL_NANOS = SAMPLING_INTERVAL * 1000000L;
+
+    @Mock
+    private PoolManager mPoolManager;
+    @Mock
+    private PoolState mPoolState;
+    @Mock
+    private QueueState mQueueState;
+    @Mock
+    private Task mTask;
+    @Mock
+    private TaskTiming mTaskTiming;
+
+    private final List<Integer> mWorkers = new ArrayList<>();
+    private int mCreatedWorkers;
+    private long mNow;
+    private AdaptiveConcurrencyPolicy mPolicy;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        when(mPoolManager.createWorker(anyInt(), anyInt())).thenAnswer(new Answer<Integer>() {
+            @Override
+            public Integer answer(InvocationOnMock invocation) {
+                mWorkers.add(++mCreatedWorkers);
+                return mCreatedWorkers;
+            }
+        });
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                mWorkers.remove(invocation.getArguments()[1]);
+                return null;
+            }
+        }).when(mPoolManager).removeWorker(anyInt(), anyInt(), anyBoolean());
+        when(mQueueState.numberOfWorkers()).thenAnswer(new Answer<Integer>() {
+            @Override
+            public Integer answer(InvocationOnMock invocation) {
+                return mWorkers.size();
+            }
+        });
+        when(mPoolState.getQueue(anyInt())).thenReturn(mQueueState);
+        when(mTask.getTiming()).thenReturn(mTaskTiming);
+
+        mPolicy = new AdaptiveConcurrencyPolicy(0, 1, 4, SAMPLING_INTERVAL, new QueueOptions()) {
+            @Override
+            long now() {
+                return mNow;
+            }
+        };
+        mPolicy.initialize(mPoolManager);
+    }
+
+    @Test
+    public void shouldStartWithMinimumNumberOfWorkers() {
+        verify(mPoolManager).createQueue(eq(1), any(QueueOptions.class));
+        verify(mPoolManager, times(1)).createWorker(anyInt(), anyInt());
+        assertEquals(1, mPolicy.getTargetWorkers());
+    }
+
+    @Test
+    public void shouldAddWorkersWhileThroughputImproves() {
+        givenBacklog();
+
+        givenAWindowWithCompletedTasks(10);
+        assertEquals(2, mPolicy.getTargetWorkers());
+
+        givenAWindowWithCompletedTasks(20);
+        assertEquals(3, mPolicy.getTargetWorkers());
+        verify(mPoolManager, times(3)).createWorker(anyInt(), anyInt());
+    }
+
+    @Test
+    public void shouldBackOffWhenExtraWorkerDoesNotImproveThroughput() {
+        givenBacklog();
+
+        givenAWindowWithCompletedTasks(10);
+        givenAWindowWithCompletedTasks(20);
+        givenAWindowWithCompletedTasks(20);
+
+        assertEquals(2, mPolicy.getTargetWorkers());
+        verify(mPoolManager).removeWorker(1, 3, false);
+    }
+
+    @Test
+    public void shouldKeepAddingWorkersWhenThroughputIsFlatButQueueWaitTimeRises() {
+        givenBacklog();
+
+        when(mTaskTiming.getQueueWaitTime()).thenReturn(1000L);
+        givenAWindowWithCompletedTasks(10);
+        givenAWindowWithCompletedTasks(20);
+        when(mTaskTiming.getQueueWaitTime()).thenReturn(5000L);
+        givenAWindowWithCompletedTasks(20);
+
+        assertEquals(4, mPolicy.getTargetWorkers());
+    }
+
+    @Test
+    public void shouldProbeAgainWhenThroughputDropsAtMinimum() {
+        givenBacklog();
+
+        givenAWindowWithCompletedTasks(10);
+        givenAWindowWithCompletedTasks(10);
+        assertEquals(1, mPolicy.getTargetWorkers());
+
+        givenAWindowWithCompletedTasks(10);
+        assertEquals(2, mPolicy.getTargetWorkers());
+    }
+
+    @Test
+    public void shouldShrinkWhenWorkersAreIdle() {
+        givenBacklog();
+        givenAWindowWithCompletedTasks(10);
+        givenAWindowWithCompletedTasks(20);
+
+        when(mQueueState.getEnqueue()).thenReturn(0);
+        when(mQueueState.getWaiters()).thenReturn(2);
+        givenAWindowWithCompletedTasks(40);
+
+        assertEquals(2, mPolicy.getTargetWorkers());
+    }
+
+    @Test
+    public void shouldNotDecideBeforeSamplingWindowEnds() {
+        givenBacklog();
+
+        for (int i = 0; i < 100; i++) {
+            mPolicy.onTaskFinished(mPoolState, mTask);
+        }
+
+        assertEquals(1, mPolicy.getTargetWorkers());
+    }
+
+    @Test
+    public void shouldReplaceWorkersRemovedByThePool() {
+        mWorkers.clear();
+        doReturn(Collections.emptyList()).when(mQueueState).getWorkers();
+
+        mPolicy.onTaskAdded(mPoolState, mTask);
+
+        verify(mPoolManager, times(2)).createWorker(anyInt(), anyInt());
+        assertEquals(1, mWorkers.size());
+    }
+
+    @Test
+    public void shouldIgnoreUnknownQueueWaitTimes() {
+        givenBacklog();
+        when(mTaskTiming.getQueueWaitTime()).thenReturn(1000L, TaskTiming.UNKNOWN);
+
+        givenAWindowWithCompletedTasks(10);
+
+        assertEquals(1000L, mPolicy.getAverageQueueWaitTime());
+    }
+
+    private void givenBacklog() {
+        when(mQueueState.getEnqueue()).thenReturn(5);
+        when(mQueueState.getWaiters()).thenReturn(0);
+    }
+
+    private void givenAWindowWithCompletedTasks(int completedTasks) {
+        for (int i = 0; i < completedTasks - 1; i++) {
+            mPolicy.onTaskFinished(mPoolState, mTask);
+        }
+        mNow += SAMPLING_INTERVAL_NANOS;
+        mPolicy.onTaskFinished(mPoolState, mTask);
+    }
+
+}
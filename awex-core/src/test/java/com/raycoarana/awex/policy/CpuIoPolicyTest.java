@@ -0,0 +1,162 @@
+package com.raycoarana.awex.policy;
+
+import com.raycoarana.awex.PoolManager;
+import com.raycoarana.awex.Task;
+import com.raycoarana.awex.state.PoolState;
+import com.raycoarana.awex.state.QueueState;
+import com.raycoarana.awex.state.WorkerState;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CpuIoPolicyTest {
+
+    @Mock
+    private PoolManager mPoolManager;
+    @Mock
+    private PoolState mPoolState;
+    @Mock
+    private QueueState mCpuQueueState;
+    @Mock
+    private QueueState mIoQueueState;
+    @Mock
+    private WorkerState mWorkerState;
+
+    private CpuIoPolicy mPolicy;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        when(mPoolManager.createWorker(anyInt(), anyInt())).thenReturn(1, 2, 3, 4);
+        when(mPoolState.getQueue(CpuIoPolicy.CPU_QUEUE_ID)).thenReturn(mCpuQueueState);
+        when(mPoolState.getQueue(CpuIoPolicy.IO_QUEUE_ID)).thenReturn(mIoQueueState);
+        doReturn(Collections.emptyList()).when(mCpuQueueState).getWorkers();
+
+        mPolicy = new CpuIoPolicy(0, 2, 4);
+        mPolicy.initialize(mPoolManager);
+    }
+
+    @Test
+    public void shouldQueueTaskWithoutHintInCpuQueue() {
+        Task task = new SomeTask(Task.WORKLOAD_UNKNOWN);
+
+        mPolicy.onTaskAdded(mPoolState, task);
+
+        verify(mPoolManager).queueTask(CpuIoPolicy.CPU_QUEUE_ID, task);
+    }
+
+    @Test
+    public void shouldQueueTaskWithIoHintInIoQueue() {
+        Task task = new SomeTask(Task.WORKLOAD_IO);
+
+        mPolicy.onTaskAdded(mPoolState, task);
+
+        verify(mPoolManager).queueTask(CpuIoPolicy.IO_QUEUE_ID, task);
+    }
+
+    @Test
+    public void shouldLearnAsIoTasksFoundWaitingInCpuWorkers() {
+        givenACpuWorkerWaitingWhileExecuting(new SomeTask(Task.WORKLOAD_UNKNOWN));
+
+        mPolicy.onTaskFinished(mPoolState, new SomeTask(Task.WORKLOAD_UNKNOWN));
+        assertFalse(mPolicy.isLearnedAsIo(SomeTask.class));
+        mPolicy.onTaskFinished(mPoolState, new SomeTask(Task.WORKLOAD_UNKNOWN));
+        assertTrue(mPolicy.isLearnedAsIo(SomeTask.class));
+
+        Task task = new SomeTask(Task.WORKLOAD_UNKNOWN);
+        mPolicy.onTaskAdded(mPoolState, task);
+        verify(mPoolManager).queueTask(CpuIoPolicy.IO_QUEUE_ID, task);
+    }
+
+    @Test
+    public void shouldNotLearnTasksWithCpuHint() {
+        givenACpuWorkerWaitingWhileExecuting(new SomeTask(Task.WORKLOAD_CPU));
+
+        mPolicy.onTaskFinished(mPoolState, new SomeTask(Task.WORKLOAD_CPU));
+        mPolicy.onTaskFinished(mPoolState, new SomeTask(Task.WORKLOAD_CPU));
+
+        assertFalse(mPolicy.isLearnedAsIo(SomeTask.class));
+    }
+
+    @Test
+    public void shouldRemoveIdleIoWorkers() {
+        WorkerState busyWorkerState = mock(WorkerState.class);
+        when(busyWorkerState.getId()).thenReturn(2);
+        when(busyWorkerState.getCurrentTask()).thenReturn(new SomeTask(Task.WORKLOAD_IO));
+        when(mWorkerState.getId()).thenReturn(3);
+        doReturn(Arrays.asList(mWorkerState, busyWorkerState)).when(mIoQueueState).getWorkers();
+        when(mIoQueueState.numberOfWorkers()).thenReturn(2);
+        when(mIoQueueState.getEnqueue()).thenReturn(0);
+        when(mIoQueueState.getWaiters()).thenReturn(1);
+
+        mPolicy.onTaskFinished(mPoolState, new SomeTask(Task.WORKLOAD_IO));
+
+        verify(mPoolManager).removeWorker(CpuIoPolicy.IO_QUEUE_ID, 3, false);
+    }
+
+    @Test
+    public void shouldNotRemoveLastIoWorker() {
+        when(mIoQueueState.numberOfWorkers()).thenReturn(1);
+        when(mIoQueueState.getEnqueue()).thenReturn(0);
+        when(mIoQueueState.getWaiters()).thenReturn(1);
+
+        mPolicy.onTaskFinished(mPoolState, new SomeTask(Task.WORKLOAD_IO));
+
+        verify(mPoolManager, never()).removeWorker(anyInt(), anyInt(), anyBoolean());
+    }
+
+    @Test
+    public void shouldReplaceWorkersRemovedByThePool() {
+        when(mCpuQueueState.numberOfWorkers()).thenReturn(2);
+        mPolicy.onTaskAdded(mPoolState, new SomeTask(Task.WORKLOAD_CPU));
+        verify(mPoolManager, times(1)).createWorker(CpuIoPolicy.CPU_QUEUE_ID, 0);
+
+        when(mCpuQueueState.numberOfWorkers()).thenReturn(0);
+        mPolicy.onTaskAdded(mPoolState, new SomeTask(Task.WORKLOAD_CPU));
+
+        verify(mPoolManager, times(2)).createWorker(CpuIoPolicy.CPU_QUEUE_ID, 0);
+    }
+
+    private void givenACpuWorkerWaitingWhileExecuting(Task task) {
+        when(mWorkerState.getState()).thenReturn(WorkerState.State.TIMED_WAITING);
+        when(mWorkerState.getCurrentTask()).thenReturn(task);
+        doReturn(Collections.singletonList(mWorkerState)).when(mCpuQueueState).getWorkers();
+    }
+
+    private static class SomeTask extends Task<Void, Void> {
+
+        private final int mWorkloadType;
+
+        private SomeTask(int workloadType) {
+            mWorkloadType = workloadType;
+        }
+
+        @Override
+        public int getWorkloadType() {
+            return mWorkloadType;
+        }
+
+        @Override
+        protected Void run() throws InterruptedException {
+            return null;
+        }
+    }
+
+}
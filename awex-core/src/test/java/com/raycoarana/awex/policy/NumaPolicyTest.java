@@ -0,0 +1,148 @@
+package com.raycoarana.awex.policy;
+
+import com.raycoarana.awex.PoolManager;
+import com.raycoarana.awex.QueueOptions;
+import com.raycoarana.awex.Task;
+import com.raycoarana.awex.state.PoolState;
+import com.raycoarana.awex.state.QueueState;
+import com.raycoarana.awex.state.WorkerState;
+import com.raycoarana.awex.util.CpuTopology;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class NumaPolicyTest {
+
+    @Mock
+    private PoolManager mPoolManager;
+    @Mock
+    private PoolState mPoolState;
+    @Mock
+    private QueueState mFirstNodeQueueState;
+    @Mock
+    private QueueState mSecondNodeQueueState;
+
+    private final QueueOptions mQueueOptions = new QueueOptions();
+    private NumaPolicy mPolicy;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        when(mPoolManager.createWorker(anyInt(), anyInt())).thenReturn(1, 2, 3, 4);
+        when(mPoolState.getQueue(NumaPolicy.getQueueId(0))).thenReturn(mFirstNodeQueueState);
+        when(mPoolState.getQueue(NumaPolicy.getQueueId(1))).thenReturn(mSecondNodeQueueState);
+        doReturn(Collections.emptyList()).when(mFirstNodeQueueState).getWorkers();
+        doReturn(Collections.emptyList()).when(mSecondNodeQueueState).getWorkers();
+    }
+
+    @Test
+    public void shouldCreateQueuePerNodeAndAssignCpusOfTheNodeToWorkers() {
+        givenAPolicy(new CpuTopology(new int[]{0, 1}, new int[]{2}));
+        givenWorkersInQueue(mFirstNodeQueueState, 1);
+
+        Task task = new SomeTask();
+        mPolicy.onTaskAdded(mPoolState, task);
+
+        verify(mPoolManager).createQueue(NumaPolicy.getQueueId(0), mQueueOptions);
+        verify(mPoolManager).createQueue(NumaPolicy.getQueueId(1), mQueueOptions);
+        verify(mPoolManager).queueTask(NumaPolicy.getQueueId(0), task);
+        assertEquals(0, mPolicy.getCpu(1));
+        assertEquals(2, mPolicy.getCpu(2));
+        assertEquals(1, mPolicy.getCpu(3));
+    }
+
+    @Test
+    public void shouldQueueTaskSubmittedFromWorkerInItsNode() {
+        givenAPolicy(new CpuTopology(new int[]{0}, new int[]{1}));
+        givenWorkersInQueue(mFirstNodeQueueState, 1);
+        givenWorkersInQueue(mSecondNodeQueueState, 2);
+        when(mFirstNodeQueueState.getWaiters()).thenReturn(1);
+        when(mSecondNodeQueueState.getWaiters()).thenReturn(1);
+        mPolicy.onWorkerStarted(NumaPolicy.getQueueId(1), 2);
+
+        Task task = new SomeTask();
+        mPolicy.onTaskAdded(mPoolState, task);
+
+        verify(mPoolManager).queueTask(NumaPolicy.getQueueId(1), task);
+    }
+
+    @Test
+    public void shouldQueueTaskInNodeWithIdleWorkers() {
+        givenAPolicy(new CpuTopology(new int[]{0}, new int[]{1}));
+        givenWorkersInQueue(mFirstNodeQueueState, 1);
+        givenWorkersInQueue(mSecondNodeQueueState, 2);
+        when(mSecondNodeQueueState.getWaiters()).thenReturn(1);
+
+        Task task = new SomeTask();
+        mPolicy.onTaskAdded(mPoolState, task);
+
+        verify(mPoolManager).queueTask(NumaPolicy.getQueueId(1), task);
+    }
+
+    @Test
+    public void shouldQueueTaskInLeastLoadedNodeWhenAllWorkersAreBusy() {
+        givenAPolicy(new CpuTopology(new int[]{0}, new int[]{1}));
+        givenWorkersInQueue(mFirstNodeQueueState, 1);
+        givenWorkersInQueue(mSecondNodeQueueState, 2);
+        when(mFirstNodeQueueState.getEnqueue()).thenReturn(5);
+        when(mSecondNodeQueueState.getEnqueue()).thenReturn(2);
+
+        Task task = new SomeTask();
+        mPolicy.onTaskAdded(mPoolState, task);
+
+        verify(mPoolManager).queueTask(NumaPolicy.getQueueId(1), task);
+    }
+
+    @Test
+    public void shouldReplaceWorkersRemovedByThePoolReusingItsCpu() {
+        givenAPolicy(new CpuTopology(new int[]{0, 1}, new int[]{2}));
+        givenWorkersInQueue(mFirstNodeQueueState, 1);
+        mPolicy.onTaskAdded(mPoolState, new SomeTask());
+        givenWorkersInQueue(mFirstNodeQueueState, 3);
+
+        mPolicy.onTaskAdded(mPoolState, new SomeTask());
+
+        assertEquals(-1, mPolicy.getCpu(1));
+        assertEquals(1, mPolicy.getCpu(3));
+        assertEquals(0, mPolicy.getCpu(4));
+    }
+
+    private void givenWorkersInQueue(QueueState queueState, int... workerIds) {
+        List<WorkerState> workers = new ArrayList<>();
+        for (int workerId : workerIds) {
+            WorkerState workerState = mock(WorkerState.class);
+            when(workerState.getId()).thenReturn(workerId);
+            workers.add(workerState);
+        }
+        doReturn(workers).when(queueState).getWorkers();
+        when(queueState.numberOfWorkers()).thenReturn(workers.size());
+    }
+
+    private void givenAPolicy(CpuTopology topology) {
+        mPolicy = new NumaPolicy(0, topology, false, mQueueOptions);
+        mPolicy.initialize(mPoolManager);
+    }
+
+    private static class SomeTask extends Task<Void, Void> {
+
+        @Override
+        protected Void run() throws InterruptedException {
+            return null;
+        }
+    }
+
+}
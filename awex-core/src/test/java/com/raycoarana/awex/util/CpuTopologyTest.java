@@ -0,0 +1,28 @@
+package com.raycoarana.awex.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CpuTopologyTest {
+
+    @Test
+    public void shouldParseCpuListWithRangesAndSingleCpus() {
+        assertArrayEquals(new int[]{0, 1, 2, 3, 8, 10, 11}, CpuTopology.parseCpuList("0-3,8,10-11\n"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailWhenCpuListIsMalformed() {
+        CpuTopology.parseCpuList("3-1");
+    }
+
+    @Test
+    public void shouldReadAtLeastOneNodeWithCpus() {
+        CpuTopology topology = CpuTopology.read();
+
+        assertTrue(topology.getNodeCount() > 0);
+        assertTrue(topology.getCpus(0).length > 0);
+    }
+
+}